@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author gsotelo
+ * Spellchecks every matching file of a directory tree, one task per file against one shared dictionary, and writes
+ * a JSON report with the findings and timing of each file. Tasks run on virtual threads when the runtime has them
+ */
+public class BatchChecker {
+    static final int DEFAULT_MAX_OPEN_FILES = 64;
+    static final String DEFAULT_INCLUDE = "**.{txt,md}";
+
+    private final Spellchecker spellchecker;
+    private final Semaphore openFiles;
+
+    /**
+     * Constructor creates a batch checker
+     * @param spellchecker The engine shared by all files
+     * @param maxOpenFiles The largest number of files read at the same time
+     */
+    public BatchChecker(Spellchecker spellchecker, int maxOpenFiles) {
+        this.spellchecker = spellchecker;
+        this.openFiles = new Semaphore(maxOpenFiles);
+    }
+
+    /**
+     * Checks every file below a directory whose relative path matches a glob
+     * @param root The directory to be walked
+     * @param include A glob such as **.{txt,md}
+     * @return The result of each file, ordered by path
+     * @throws IOException If the directory cannot be walked
+     */
+    public List<FileResult> check(Path root, String include) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + include);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).filter(path -> matcher.matches(root.relativize(path)))
+                    .sorted().collect(Collectors.toList());
+        }
+
+        ExecutorService executor = newExecutor();
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(executor.submit(() -> check(file)));
+            }
+            List<FileResult> results = new ArrayList<>();
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (Exception e) {
+                    throw new IOException("Batch check interrupted", e);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Checks one file, holding a permit of the open file limit while it is read
+     * @param file The file to be checked
+     * @return The finding counts and timing of the file
+     */
+    private FileResult check(Path file) throws InterruptedException {
+        FileResult result = new FileResult(file);
+        openFiles.acquire();
+        long start = System.nanoTime();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            result.characters = new StreamingChecker(spellchecker, 1 << 13).check(in, null,
+                    finding -> result.counts[finding.getType().ordinal()]++, finding -> null);
+        } catch (IOException e) {
+            result.error = e.toString();
+        } finally {
+            openFiles.release();
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task when the runtime supports them, and otherwise
+     * falls back to a pool with one thread per processor
+     * @return The executor
+     */
+    static ExecutorService newExecutor() {
+        return newExecutor(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task when the runtime supports them, and otherwise
+     * falls back to a fixed pool of platform threads
+     * @param fallbackThreads The size of the pool used without virtual threads
+     * @return The executor
+     */
+    static ExecutorService newExecutor(int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(fallbackThreads);
+        }
+    }
+
+    /**
+     * Writes a report of a batch check as JSON
+     * @param out Receives the report
+     * @param root The directory that was checked
+     * @param results The result of each file
+     * @param nanos The duration of the whole check
+     * @throws IOException If the report cannot be written
+     */
+    static void writeReport(Writer out, Path root, List<FileResult> results, long nanos) throws IOException {
+        long findings = 0;
+        long characters = 0;
+        int errors = 0;
+        for (FileResult result : results) {
+            findings += result.getFindings();
+            characters += result.characters;
+            errors += result.error != null ? 1 : 0;
+        }
+        out.write("{\n  \"root\": " + Json.quote(root.toString()) + ",\n  \"files\": " + results.size()
+                + ",\n  \"errors\": " + errors + ",\n  \"characters\": " + characters + ",\n  \"findings\": "
+                + findings + ",\n  \"millis\": " + nanos / 1_000_000 + ",\n  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            FileResult result = results.get(i);
+            out.write(i == 0 ? "\n" : ",\n");
+            out.write("    {\"path\": " + Json.quote(root.relativize(result.file).toString()) + ", \"characters\": "
+                    + result.characters + ", \"findings\": " + result.getFindings());
+            for (Finding.Type type : Finding.Type.values()) {
+                out.write(", " + Json.quote(type.name().toLowerCase()) + ": " + result.counts[type.ordinal()]);
+            }
+            out.write(", \"micros\": " + result.nanos / 1000);
+            if (result.error != null) {
+                out.write(", \"error\": " + Json.quote(result.error));
+            }
+            out.write("}");
+        }
+        out.write("\n  ]\n}\n");
+        out.flush();
+    }
+
+    /**
+     * Checks a directory tree from the command line; exits with status 1 when anything was found and 2 when a
+     * file could not be read or the arguments are wrong, so the check can gate a merge
+     * @param args [--max-open N] [--include GLOB] [--report FILE] directory
+     */
+    public static void main(String[] args) throws IOException {
+        int maxOpen = DEFAULT_MAX_OPEN_FILES;
+        String include = DEFAULT_INCLUDE;
+        String report = null;
+        String directory = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--max-open") && i + 1 < args.length) {
+                maxOpen = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--include") && i + 1 < args.length) {
+                include = args[++i];
+            } else if (args[i].equals("--report") && i + 1 < args.length) {
+                report = args[++i];
+            } else {
+                directory = args[i];
+            }
+        }
+        if (directory == null) {
+            System.err.println("Usage: java BatchChecker [--max-open N] [--include GLOB] [--report FILE] directory");
+            System.exit(2);
+        }
+
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        dictionary.userWordList("user_dict.txt");
+        BatchChecker checker = new BatchChecker(new Spellchecker(dictionary), maxOpen);
+        Path root = Paths.get(directory);
+
+        long start = System.nanoTime();
+        List<FileResult> results = checker.check(root, include);
+        long nanos = System.nanoTime() - start;
+        if (report != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(report), StandardCharsets.UTF_8)) {
+                writeReport(out, root, results, nanos);
+            }
+        } else {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            writeReport(out, root, results, nanos);
+        }
+        long findings = results.stream().mapToLong(FileResult::getFindings).sum();
+        long errors = results.stream().filter(result -> result.getError() != null).count();
+        System.err.printf("%d files, %,d findings, %d errors in %d ms%n", results.size(), findings, errors,
+                nanos / 1_000_000);
+        // a file that could not be read was not checked, so it must not pass as clean
+        System.exit(errors > 0 ? 2 : findings > 0 ? 1 : 0);
+    }
+
+    /**
+     * Holds the outcome of checking one file
+     */
+    public static class FileResult {
+        private final Path file;
+        private final int[] counts = new int[Finding.Type.values().length];
+        private long characters;
+        private long nanos;
+        private String error;
+
+        FileResult(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * Accessor to retrieve the checked file
+         * @return the file
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Accessor to retrieve the number of findings of one type
+         * @param type The type of finding
+         * @return the number of findings
+         */
+        public int getCount(Finding.Type type) {
+            return counts[type.ordinal()];
+        }
+
+        /**
+         * Accessor to retrieve the number of findings of every type
+         * @return the number of findings
+         */
+        public long getFindings() {
+            long total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Accessor to retrieve the error that stopped the file from being checked
+         * @return the error, or null if the file was checked
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
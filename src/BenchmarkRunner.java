@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * @author gsotelo
+ * Small benchmark harness in the manner of JMH: timed warmup and measurement iterations, the average time per
+ * operation with its error, and the bytes allocated and collections run per operation. Results are saved as tab
+ * separated values so two runs can be compared
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+    // benchmark results are summed here so the JIT cannot drop the measured work
+    private volatile long sink;
+
+    /**
+     * Constructor creates a runner
+     * @param warmupIterations The number of iterations run before measuring
+     * @param iterations The number of measured iterations
+     * @param iterationMillis The minimum duration of an iteration; an iteration runs the benchmark at least once
+     */
+    public BenchmarkRunner(int warmupIterations, int iterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    /**
+     * Runs a benchmark and prints its result
+     * @param name The name of the benchmark
+     * @param operations The number of operations one call of the body performs
+     * @param body Performs the operations and returns a value depending on their results
+     * @return The result of the benchmark
+     */
+    public Result run(String name, int operations, LongSupplier body) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        double[] scores = new double[iterations];
+        long allocated = 0;
+        long collections = 0;
+        long totalOperations = 0;
+        for (int i = -warmupIterations; i < iterations; i++) {
+            long gcBefore = collectionCount();
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long calls = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += body.getAsLong();
+                calls++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < iterationNanos);
+            if (i >= 0) {
+                scores[i] = (double) elapsed / (calls * operations);
+                allocated += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+                collections += collectionCount() - gcBefore;
+                totalOperations += calls * operations;
+            }
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score / iterations;
+        }
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean) / Math.max(1, iterations - 1);
+        }
+        Result result = new Result(name, mean, Math.sqrt(variance), (double) allocated / totalOperations,
+                (double) collections / totalOperations);
+        results.add(result);
+        System.out.println(result.format());
+        return result;
+    }
+
+    /**
+     * Saves every result run so far
+     * @param path The file the results are written to
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        StringBuilder out = new StringBuilder("benchmark\tns/op\terror\tB/op\tgc/op\n");
+        for (Result result : results) {
+            out.append(String.format(Locale.ROOT, "%s\t%.3f\t%.3f\t%.1f\t%.9f%n", result.name, result.nanosPerOp,
+                    result.error, result.bytesPerOp, result.collectionsPerOp));
+        }
+        Files.writeString(path, out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prints how every result run so far changed from the results of an earlier run
+     * @param baseline A file written by save
+     * @throws IOException If the file cannot be read
+     */
+    public void compare(Path baseline) throws IOException {
+        Map<String, String[]> previous = new HashMap<>();
+        for (String line : Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            previous.put(fields[0], fields);
+        }
+        System.out.printf("%nChange from %s:%n", baseline);
+        for (Result result : results) {
+            String[] fields = previous.get(result.name);
+            if (fields == null) {
+                System.out.printf("%-40s (new)%n", result.name);
+                continue;
+            }
+            double oldTime = Double.parseDouble(fields[1]);
+            double oldError = Double.parseDouble(fields[2]);
+            double oldBytes = Double.parseDouble(fields[3]);
+            double change = (result.nanosPerOp - oldTime) / oldTime * 100;
+            boolean significant = Math.abs(result.nanosPerOp - oldTime) > result.error + oldError;
+            System.out.printf(Locale.ROOT, "%-40s %+7.1f%% time%s, %+.1f B/op%n", result.name, change,
+                    significant ? "" : " (within error)", result.bytesPerOp - oldBytes);
+        }
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Holds the measurements of one benchmark
+     */
+    public static class Result {
+        private final String name;
+        private final double nanosPerOp;
+        private final double error;
+        private final double bytesPerOp;
+        private final double collectionsPerOp;
+
+        Result(String name, double nanosPerOp, double error, double bytesPerOp, double collectionsPerOp) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+            this.collectionsPerOp = collectionsPerOp;
+        }
+
+        /**
+         * Accessor to retrieve the average time of an operation
+         * @return the nanoseconds per operation
+         */
+        public double getNanosPerOp() {
+            return nanosPerOp;
+        }
+
+        /**
+         * Accessor to retrieve the average allocation of an operation
+         * @return the bytes allocated per operation
+         */
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        String format() {
+            return String.format(Locale.ROOT, "%-40s %12.1f +- %8.1f ns/op %12.1f B/op %10.6f gc/op", name,
+                    nanosPerOp, error, bytesPerOp, collectionsPerOp);
+        }
+    }
+}
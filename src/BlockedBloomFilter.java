@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author gsotelo
+ * Blocked Bloom filter over the words of a dictionary, used to reject words that are certainly missing before the
+ * word graph is walked. Every word sets its bits inside one 512 bit block, a single cache line, so a lookup touches
+ * one line of memory however many bits it tests. Words are hashed the way the dictionary compares them: letters
+ * only, in lower case, straight from the text that holds them
+ */
+public class BlockedBloomFilter {
+    static final int MAGIC = 0x4A534342; // "JSCB"
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_BITS = BLOCK_LONGS * 64;
+
+    private final long[] bits;
+    private final int blocks;
+    private final int hashes;
+    private final double falsePositiveRate;
+
+    /**
+     * Constructor builds the filter over every word of a word graph
+     * @param words The dictionary words
+     * @param falsePositiveRate The share of missing words the filter may let through, e.g. 0.01
+     */
+    public BlockedBloomFilter(WordGraph words, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        int expected = Math.max(1, words.size());
+        // optimal bits and hash count of a classic Bloom filter; blocking costs a little accuracy in exchange
+        // for locality, made up by rounding the size up to whole blocks
+        double bitsNeeded = -expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.blocks = (int) Math.max(1, Math.ceil(bitsNeeded / BLOCK_BITS));
+        this.hashes = (int) Math.max(1, Math.min(16, Math.round(bitsNeeded / expected * Math.log(2))));
+        this.falsePositiveRate = falsePositiveRate;
+        this.bits = new long[blocks * BLOCK_LONGS];
+        for (String word : words) {
+            add(hash(word, 0, word.length()));
+        }
+    }
+
+    private BlockedBloomFilter(long[] bits, int hashes, double falsePositiveRate) {
+        this.bits = bits;
+        this.blocks = bits.length / BLOCK_LONGS;
+        this.hashes = hashes;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Tests whether a word of a larger text may be in the filter, without copying it
+     * @param text The text containing the word
+     * @param start The offset of the word
+     * @param end The offset after the word
+     * @return False if the word is certainly not in the filter, true if it probably is
+     */
+    public boolean mightContain(CharSequence text, int start, int end) {
+        long hash = hash(text, start, end);
+        int block = block(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Accessor to retrieve the false positive rate the filter was sized for
+     * @return the false positive rate
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Accessor to retrieve the number of bits tested per lookup
+     * @return the number of hash functions
+     */
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Accessor to retrieve the size of the filter
+     * @return the number of bytes of the bit array
+     */
+    public long sizeInBytes() {
+        return 8L * bits.length;
+    }
+
+    /**
+     * Saves the filter so later runs can load it instead of rebuilding it
+     * @param path The filter file to be written
+     * @param words The word graph the filter was built over
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path, WordGraph words) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 8 * bits.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(words.size()).putInt(words.arcCount())
+                .putDouble(falsePositiveRate).putInt(hashes).putInt(blocks);
+        buffer.asLongBuffer().put(bits);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a filter written by save
+     * @param path The filter file
+     * @param words The word graph the filter must have been built over
+     * @param falsePositiveRate The false positive rate the filter must have been sized for
+     * @return The filter, or null if the file is missing or was built for other words or settings
+     * @throws IOException If the file exists but cannot be read
+     */
+    public static BlockedBloomFilter load(Path path, WordGraph words, double falsePositiveRate) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != words.size()
+                || buffer.getInt() != words.arcCount() || buffer.getDouble() != falsePositiveRate) {
+            return null;
+        }
+        int hashes = buffer.getInt();
+        int blocks = buffer.getInt();
+        if (buffer.remaining() != 8L * blocks * BLOCK_LONGS) {
+            return null;
+        }
+        long[] bits = new long[blocks * BLOCK_LONGS];
+        buffer.asLongBuffer().get(bits);
+        return new BlockedBloomFilter(bits, hashes, falsePositiveRate);
+    }
+
+    private void add(long hash) {
+        int block = block(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            bits[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Picks the block of a hash from its top 24 bits
+     * @return The index of the block's first long
+     */
+    private int block(long hash) {
+        return (int) (((hash >>> 40) * blocks) >>> 24) * BLOCK_LONGS;
+    }
+
+    /**
+     * Hashes the letters of a span of text in lower case, skipping other characters
+     */
+    private static long hash(CharSequence text, int start, int end) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * 0xFF51AFD7ED558CCDL;
+            }
+        }
+        // final avalanche, so every bit of the result depends on every letter
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author gsotelo
+ * Remembers the user's past decisions about misspelled words, so recurring typos resolve without computing
+ * suggestions or asking again. A word is either replaced or ignored; the decisions are kept in least recently used
+ * order, the oldest evicted beyond a capacity, and saved to a tab separated file, one word per line with an empty
+ * replacement for ignored words
+ */
+public class CorrectionMemory {
+    static final int DEFAULT_CAPACITY = 10_000;
+    static final String DEFAULT_FILE = "corrections.txt";
+    /**
+     * The decision returned for ignored words
+     */
+    public static final String IGNORE = "";
+
+    private final Path file;
+    private final int capacity;
+    // misspelling in lower case to replacement, or IGNORE; in access order, eldest first
+    private final LinkedHashMap<String, String> decisions;
+    private volatile boolean autoApply = true;
+    private boolean changed;
+    private long evictions;
+
+    /**
+     * Constructor creates an empty memory saved to a file
+     * @param file The file decisions are saved to, or null to keep them in memory only
+     * @param capacity The largest number of words remembered
+     */
+    public CorrectionMemory(Path file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        this.decisions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() > CorrectionMemory.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Reads the decisions saved in a file. A missing file gives an empty memory
+     * @param file The file decisions are read from and saved to
+     * @param capacity The largest number of words remembered
+     * @return The memory
+     */
+    public static CorrectionMemory load(Path file, int capacity) {
+        CorrectionMemory memory = new CorrectionMemory(file, capacity);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0 && line.indexOf('\t', tab + 1) < 0) {
+                    memory.decisions.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // nothing remembered yet
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return memory;
+    }
+
+    /**
+     * Looks up the decision about a misspelled word, in constant time
+     * @param word The word as written
+     * @return The replacement in the case of the word as written, IGNORE if the word is ignored, or null if there
+     *         is no decision or auto-apply is off
+     */
+    public String lookup(String word) {
+        if (!autoApply) {
+            return null;
+        }
+        String decision;
+        synchronized (this) {
+            decision = decisions.get(word.toLowerCase());
+        }
+        return decision == null || decision.isEmpty() ? decision : matchCase(word, decision);
+    }
+
+    /**
+     * Remembers that a misspelled word was replaced
+     * @param word The word as written
+     * @param replacement The replacement the user chose
+     */
+    public synchronized void recordReplacement(String word, String replacement) {
+        if (replacement.isEmpty() || replacement.contains("\t") || replacement.contains("\n")) {
+            return;
+        }
+        // case that only mirrors the word as written is stored in lower case, e.g. Teh -> The as teh -> the, so it
+        // is applied to teh too; proper nouns keep theirs
+        String lower = replacement.toLowerCase();
+        record(word, matchCase(word, lower).equals(replacement) ? lower : replacement);
+    }
+
+    /**
+     * Remembers that a misspelled word was left as written
+     * @param word The word as written
+     */
+    public synchronized void recordIgnore(String word) {
+        record(word, IGNORE);
+    }
+
+    /**
+     * Forgets the decision about a word
+     * @param word The word as written
+     */
+    public synchronized void forget(String word) {
+        changed |= decisions.remove(word.toLowerCase()) != null;
+    }
+
+    /**
+     * Turns applying remembered decisions on or off; decisions are still recorded while it is off
+     * @param autoApply True to apply remembered decisions
+     */
+    public void setAutoApply(boolean autoApply) {
+        this.autoApply = autoApply;
+    }
+
+    /**
+     * Accessor to retrieve whether remembered decisions are applied
+     * @return true if lookups return remembered decisions
+     */
+    public boolean isAutoApply() {
+        return autoApply;
+    }
+
+    /**
+     * Accessor to retrieve the number of remembered words
+     * @return the number of decisions
+     */
+    public synchronized int size() {
+        return decisions.size();
+    }
+
+    /**
+     * Accessor to retrieve the number of decisions evicted to stay within the capacity
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Writes the decisions to the file if they changed since the last save, replacing it atomically
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        if (file == null || !changed) {
+            return;
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> decision : decisions.entrySet()) {
+                out.write(decision.getKey() + "\t" + decision.getValue() + "\n");
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        changed = false;
+    }
+
+    private void record(String word, String decision) {
+        String key = word.toLowerCase();
+        if (key.isEmpty() || key.contains("\t") || key.contains("\n")) {
+            return;
+        }
+        // re-inserting moves the word to the most recently used end even when the decision is the same
+        decisions.remove(key);
+        decisions.put(key, decision);
+        changed = true;
+    }
+
+    /**
+     * Gives a replacement the capitalization of the word it replaces: all upper case or a leading capital
+     * @param word The word as written
+     * @param replacement The replacement in lower case
+     * @return The replacement in the matching case
+     */
+    static String matchCase(String word, String replacement) {
+        if (word.length() > 1 && word.equals(word.toUpperCase()) && !word.equals(word.toLowerCase())) {
+            return replacement.toUpperCase();
+        }
+        if (!word.isEmpty() && Character.isUpperCase(word.charAt(0))) {
+            return Character.toUpperCase(replacement.charAt(0)) + replacement.substring(1);
+        }
+        return replacement;
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * @author gsotelo
+ * SymSpell style suggestion index. Every dictionary word is stored under the hashes of the strings left after
+ * deleting up to maxDistance of its letters, so the words within maxDistance edits of a misspelled word are found
+ * by hashing the deletes of the misspelled word alone. Only the first prefixLength letters are used for deletes,
+ * which bounds the size of the index; candidates are verified with the true edit distance.
+ */
+public class DeletionIndex {
+    static final int MAGIC = 0x4A534344; // "JSCD"
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    private final int maxDistance;
+    private final int prefixLength;
+    private final IntMultimap index;
+    // the words by id, packed back to back: word i runs from starts[i] to starts[i + 1]
+    private final CharBuffer text;
+    private final IntBuffer starts;
+    // deleteMasks[n] lists the bit masks of the letters deleted from an n letter prefix
+    private final int[][] deleteMasks;
+
+    /**
+     * Constructor builds the index over every word of a word graph
+     * @param words The dictionary words
+     * @param maxDistance The largest edit distance of the suggestions
+     * @param prefixLength The number of leading letters deletes are computed on, at most 31
+     */
+    public DeletionIndex(WordGraph words, int maxDistance, int prefixLength) {
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+        this.deleteMasks = deleteMasks(prefixLength, maxDistance);
+
+        long[] pairs = new long[Math.max(16, words.size() * deleteMasks[prefixLength].length / 2)];
+        StringBuilder packed = new StringBuilder();
+        int[] wordStarts = new int[words.size() + 1];
+        int size = 0;
+        int id = 0;
+        for (String word : words) {
+            wordStarts[id] = packed.length();
+            packed.append(word);
+            int length = Math.min(word.length(), prefixLength);
+            for (int mask : deleteMasks[length]) {
+                if (size == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, size + size / 2);
+                }
+                pairs[size++] = ((long) hash(word, length, mask) << 32) | id;
+            }
+            id++;
+        }
+        wordStarts[id] = packed.length();
+        this.index = new IntMultimap(pairs, size);
+        this.text = CharBuffer.wrap(packed.toString().toCharArray());
+        this.starts = IntBuffer.wrap(wordStarts);
+    }
+
+    private DeletionIndex(int maxDistance, int prefixLength, IntMultimap index, CharBuffer text, IntBuffer starts) {
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+        this.deleteMasks = deleteMasks(prefixLength, maxDistance);
+        this.index = index;
+        this.text = text;
+        this.starts = starts;
+    }
+
+    /**
+     * Finds the dictionary words within maxDistance edits of a word, the word itself excluded
+     * @param word The misspelled word, in lower case
+     * @return The suggested words ordered by edit distance, then alphabetically
+     */
+    public List<String> lookup(String word) {
+        int length = Math.min(word.length(), prefixLength);
+        int[] candidates = new int[64];
+        int count = 0;
+        for (int mask : deleteMasks[length]) {
+            int slot = index.find(hash(word, length, mask));
+            if (slot < 0) {
+                continue;
+            }
+            for (int i = index.start(slot); i < index.end(slot); i++) {
+                int id = index.value(i);
+                if (Math.abs(starts.get(id + 1) - starts.get(id) - word.length()) > maxDistance) {
+                    continue;
+                }
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, count * 2);
+                }
+                candidates[count++] = id;
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+
+        // candidates come out in word id order, which is alphabetical, so each distance bucket stays alphabetical
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int d = 0; d <= maxDistance; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            int start = starts.get(candidates[i]);
+            int end = starts.get(candidates[i] + 1);
+            int distance = EditDistance.distance(word, text, start, end, maxDistance);
+            if (distance > 0 && distance <= maxDistance) {
+                byDistance.get(distance).add(text.subSequence(start, end).toString());
+            }
+        }
+        List<String> suggestions = new ArrayList<>();
+        byDistance.forEach(suggestions::addAll);
+        return suggestions;
+    }
+
+    /**
+     * Accessor to retrieve the largest edit distance of the suggestions
+     * @return the largest edit distance
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Accessor to retrieve the number of leading letters the deletes are computed on
+     * @return the prefix length
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Saves the index so later runs can load it instead of rebuilding it
+     * @param path The index file to be written
+     * @param words The word graph the index was built over
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path, WordGraph words) throws IOException {
+        int bytes = HEADER_BYTES + index.sizeInBytes() + 4 * starts.limit() + 2 * text.limit();
+        ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(words.size()).putInt(words.arcCount())
+                .putInt(maxDistance).putInt(prefixLength);
+        index.save(buffer);
+        buffer.asIntBuffer().put(starts.duplicate().rewind());
+        buffer.position(buffer.position() + 4 * starts.limit());
+        buffer.asCharBuffer().put(text.duplicate().rewind());
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Memory maps an index written by save
+     * @param path The index file
+     * @param words The word graph the index must have been built over
+     * @param maxDistance The largest edit distance the index must support
+     * @param prefixLength The prefix length the index must have been built with
+     * @return The index, or null if the file is missing, truncated or was built for other words or settings
+     * @throws IOException If the file exists but cannot be read
+     */
+    public static DeletionIndex load(Path path, WordGraph words, int maxDistance, int prefixLength)
+            throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != words.size()
+                || buffer.getInt() != words.arcCount() || buffer.getInt() != maxDistance
+                || buffer.getInt() != prefixLength) {
+            return null;
+        }
+        IntMultimap index = IntMultimap.load(buffer);
+        int startsBytes = 4 * (words.size() + 1);
+        if (index == null || startsBytes > buffer.remaining()) {
+            return null;
+        }
+        IntBuffer starts = buffer.slice(buffer.position(), startsBytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        buffer.position(buffer.position() + startsBytes);
+        // the packed words must fill the rest of the file exactly
+        if (starts.get(0) != 0 || 2L * starts.get(words.size()) != buffer.remaining()) {
+            return null;
+        }
+        CharBuffer text = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+        return new DeletionIndex(maxDistance, prefixLength, index, text, starts);
+    }
+
+    /**
+     * Hashes the letters of a word prefix that are not deleted
+     * @param word The word
+     * @param length The length of the prefix
+     * @param deleted The bit mask of the deleted letter positions
+     * @return The hash of the remaining letters
+     */
+    private static int hash(CharSequence word, int length, int deleted) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            if ((deleted & (1 << i)) == 0) {
+                hash = (hash ^ word.charAt(i)) * 0x01000193;
+            }
+        }
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+
+    /**
+     * Lists, for every prefix length up to a maximum, the masks of all sets of at most maxDistance deleted letters
+     * @param prefixLength The maximum prefix length
+     * @param maxDistance The maximum number of deleted letters
+     * @return The masks indexed by prefix length
+     */
+    private static int[][] deleteMasks(int prefixLength, int maxDistance) {
+        int[][] masks = new int[prefixLength + 1][];
+        for (int length = 0; length <= prefixLength; length++) {
+            List<Integer> list = new ArrayList<>();
+            addMasks(list, length, maxDistance, 0, 0);
+            masks[length] = list.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return masks;
+    }
+
+    private static void addMasks(List<Integer> masks, int length, int remaining, int from, int mask) {
+        masks.add(mask);
+        if (remaining == 0) {
+            return;
+        }
+        for (int i = from; i < length; i++) {
+            addMasks(masks, length, remaining - 1, i + 1, mask | (1 << i));
+        }
+    }
+}
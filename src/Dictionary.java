@@ -1,55 +1,453 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * @author gsotelo
- * Class containing the app's default dictionary and the user dictionary
+ * Class containing the app's default dictionary and the user dictionary. The words are held in an immutable
+ * Snapshot; every change builds a new snapshot and publishes it atomically, so lookups and suggestions on any
+ * thread read a consistent set of words without locking
  */
 public class Dictionary {
-    private Set<String> wordSet;
-    private Set<String> userDictionary;
+    static final int SUGGESTION_CACHE_SIZE = 4096;
+    static final int RANKED_SUGGESTIONS = 10;
+    static final String FREQUENCY_FILE = "word_freq.txt";
+    // fewer edit based suggestions than this are topped up with sound-alike words
+    static final int SCARCE_SUGGESTIONS = 3;
+    private static final Dictionary SHARED = new Dictionary();
+    private static CompletableFuture<Dictionary> sharedLoad;
+
+    private final AtomicReference<Snapshot> snapshot;
+    private String deletionIndexFile;
+    private String bloomFilterFile;
+    private String phoneticIndexFile;
+    private final SuggestionCache suggestionCache;
+    private volatile UserDictionaryJournal journal;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor initializes the default dictionary and the user dictionary
      */
     public Dictionary() {
-        wordSet = new HashSet<>();
-        userDictionary = new HashSet<>();
+        snapshot = new AtomicReference<>(new Snapshot(new WordGraph(Collections.emptyList()),
+                Collections.emptySet(), null, null, null, null));
+        suggestionCache = new SuggestionCache(SUGGESTION_CACHE_SIZE);
     }
 
     /**
-     * Reads the content of the dictionary file and writes it to memory
+     * Accessor to retrieve the dictionary shared by the whole application
+     * @return the shared dictionary, which may still be loading
+     */
+    public static Dictionary getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Loads the shared dictionary on a background thread, with a phonetic index for sound-alike suggestions and the
+     * word frequencies of word_freq.txt when that file exists. Only the first call loads; later calls return the
+     * same pending or completed load
+     * @param filename The dictionary file to be read
+     * @param userFilename The user dictionary file to be read
+     * @return A future completed with the shared dictionary
+     */
+    public static synchronized CompletableFuture<Dictionary> loadShared(String filename, String userFilename) {
+        if (sharedLoad == null) {
+            sharedLoad = CompletableFuture.supplyAsync(() -> {
+                try {
+                    SHARED.readWordList(filename);
+                } catch (IOException e) {
+                    // fail the load rather than check against an empty dictionary
+                    throw new UncheckedIOException(e);
+                }
+                SHARED.usePhoneticIndex(phoneticPath(Paths.get(filename)).toString());
+                SHARED.journalUserWordList(userFilename);
+                if (Files.isRegularFile(Paths.get(FREQUENCY_FILE))) {
+                    SHARED.useFrequencies(FREQUENCY_FILE);
+                }
+                return SHARED;
+            });
+        }
+        return sharedLoad;
+    }
+
+    /**
+     * Accessor to retrieve the words currently published
+     * @return the current snapshot
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Publishes a new snapshot derived from the current one. Writers are serialized; readers keep using the
+     * snapshot they already hold
+     * @param change Builds the new snapshot from the current one
+     */
+    private synchronized void update(UnaryOperator<Snapshot> change) {
+        snapshot.set(change.apply(snapshot.get()));
+        suggestionCache.invalidate();
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Registers a listener run after every change of the words, e.g. a word added to the user dictionary here or
+     * by another process. Listeners run on the thread making the change while writers are blocked, so they should
+     * only schedule their work
+     * @param listener The listener to be run
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added by addChangeListener
+     * @param listener The listener to be removed
+     */
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Reads the content of the dictionary file and writes it to memory. Words of every loaded file are merged
+     * into one compact word graph. A compiled binary copy of the file is memory mapped instead when it is up to date
      * @param filename The dictionary file to be read
      */
     public void wordList(String filename) {
-        try (Scanner scanner = new Scanner(new File(filename))) {
-            while (scanner.hasNext()) {
-                wordSet.add(scanner.next().toLowerCase());
-            }
-        } catch (FileNotFoundException e) {
+        try {
+            readWordList(filename);
+        } catch (NoSuchFileException e) {
             System.err.println("Dictionary file not found: " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
+    /**
+     * Reads the content of the dictionary file and writes it to memory, like wordList, but fails if it cannot
+     * @param filename The dictionary file to be read
+     * @throws IOException If neither the file nor its compiled copy can be read
+     */
+    void readWordList(String filename) throws IOException {
+        long began = Metrics.start();
+        Path source = Paths.get(filename);
+        WordGraph compiled = null;
+        try {
+            if (Files.isRegularFile(source)) {
+                compiled = WordGraph.map(compiledPath(source), Files.size(source),
+                        Files.getLastModifiedTime(source).toMillis());
+            }
+        } catch (IOException e) {
+            System.err.println("Compiled dictionary unreadable, reading " + filename + " instead");
+        }
+        List<String> read = compiled == null ? readWords(filename) : null;
+        WordGraph mapped = compiled;
+        update(current -> {
+            WordGraph words = mapped == null ? WordGraph.merge(current.wordSet, read)
+                    : current.wordSet.size() == 0 ? mapped : WordGraph.merge(current.wordSet, mapped);
+            DeletionIndex index = current.deletionIndex == null ? null : deletionIndex(words,
+                    current.deletionIndex.getMaxDistance(), current.deletionIndex.getPrefixLength());
+            WordFrequencies frequencies = null;
+            if (current.frequencies != null) {
+                try {
+                    frequencies = current.frequencies.reload(words);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            BlockedBloomFilter filter = current.filter == null ? null
+                    : bloomFilter(words, current.filter.getFalsePositiveRate());
+            PhoneticIndex phonetic = current.phoneticIndex == null ? null : phoneticIndex(words);
+            return new Snapshot(words, current.userDictionary, index, frequencies, filter, phonetic);
+        });
+        Metrics.LOAD.record(began);
+    }
+
     /**
      * Reads the content of the user dictionary file and writes it to memory
      * @param filename The user dictionary file to be read
      */
     public void userWordList(String filename) {
-        try (Scanner scanner = new Scanner(new File(filename))) {
-            while (scanner.hasNext()) {
-                userDictionary.add(scanner.next().toLowerCase());
-            }
-        } catch (FileNotFoundException e) {
+        try {
+            List<String> words = readWords(filename);
+            update(current -> current.withUserWords(words));
+        } catch (NoSuchFileException e) {
             System.err.println("Dictionary file not found: " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
     /**
-     * Adds a misspelled word to the user's dictionary
+     * Reads the user dictionary file into memory and keeps it in step from then on: words added through
+     * addUserDictionary are appended to it in the background, and words other processes add to it are picked up
+     * @param filename The user dictionary file, created when missing
+     */
+    public void journalUserWordList(String filename) {
+        try {
+            journal = new UserDictionaryJournal(Paths.get(filename), this);
+        } catch (IOException e) {
+            System.err.println("Could not journal " + filename + ", reading it once instead");
+            userWordList(filename);
+        }
+    }
+
+    /**
+     * Accessor to retrieve the journal of the user dictionary file
+     * @return the journal, or null if the user dictionary is not journaled
+     */
+    public UserDictionaryJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Adds words to the user dictionary in memory only
+     * @param words The words to be added, in lower case
+     */
+    void addUserWords(Collection<String> words) {
+        update(current -> current.withUserWords(words));
+    }
+
+    /**
+     * Removes words from the user dictionary in memory only, e.g. after they were deleted from the file
+     * @param words The words to be removed, in lower case
+     */
+    void removeUserWords(Collection<String> words) {
+        update(current -> current.withoutUserWords(words));
+    }
+
+    /**
+     * Switches getSuggestions to a precomputed deletion index, which finds every word within maxDistance edits,
+     * substitutions included. The index follows later wordList calls
+     * @param maxDistance The largest edit distance of the suggestions
+     * @param prefixLength The number of leading letters the deletes are computed on; longer prefixes make a larger
+     *                     index with faster lookups
+     * @param indexFile The file the index is loaded from when it matches the loaded words, and saved to otherwise;
+     *                  null to keep the index in memory only
+     */
+    public void useDeletionIndex(int maxDistance, int prefixLength, String indexFile) {
+        update(current -> {
+            deletionIndexFile = indexFile;
+            return new Snapshot(current.wordSet, current.userDictionary,
+                    deletionIndex(current.wordSet, maxDistance, prefixLength), current.frequencies, current.filter,
+                    current.phoneticIndex);
+        });
+    }
+
+    /**
+     * Ranks the suggestions of getSuggestions by how common each word is together with its edit distance, keeping
+     * the best ten. The counts follow later wordList calls
+     * @param filename A file with one word and its count per line, separated by whitespace or a comma
+     */
+    public void useFrequencies(String filename) {
+        update(current -> {
+            try {
+                return new Snapshot(current.wordSet, current.userDictionary, current.deletionIndex,
+                        WordFrequencies.load(Paths.get(filename), current.wordSet), current.filter,
+                        current.phoneticIndex);
+            } catch (IOException e) {
+                System.err.println("Frequency file could not be read: " + filename);
+                return current;
+            }
+        });
+    }
+
+    /**
+     * Puts a blocked Bloom filter in front of the word graph, so most words missing from the dictionary are rejected
+     * without walking the graph. The filter follows later wordList calls
+     * @param falsePositiveRate The share of missing words the filter may let through to the graph, e.g. 0.01
+     * @param filterFile The file the filter is loaded from when it matches the loaded words, and saved to
+     *                   otherwise; null to keep the filter in memory only
+     */
+    public void useBloomFilter(double falsePositiveRate, String filterFile) {
+        update(current -> {
+            bloomFilterFile = filterFile;
+            return new Snapshot(current.wordSet, current.userDictionary, current.deletionIndex, current.frequencies,
+                    bloomFilter(current.wordSet, falsePositiveRate), current.phoneticIndex);
+        });
+    }
+
+    /**
+     * Tops up getSuggestions with words that sound like the misspelled word when fewer than three words are within
+     * reach of a few edits, e.g. "phonetic" for "fonetik". The index follows later wordList calls
+     * @param indexFile The file the index is loaded from when it matches the loaded words, and saved to otherwise;
+     *                  null to keep the index in memory only
+     */
+    public void usePhoneticIndex(String indexFile) {
+        update(current -> {
+            phoneticIndexFile = indexFile;
+            return new Snapshot(current.wordSet, current.userDictionary, current.deletionIndex, current.frequencies,
+                    current.filter, phoneticIndex(current.wordSet));
+        });
+    }
+
+    /**
+     * Loads the phonetic index of a word graph from the index file, or builds it and saves it there
+     * @return The phonetic index
+     */
+    private PhoneticIndex phoneticIndex(WordGraph words) {
+        PhoneticIndex index = null;
+        if (phoneticIndexFile != null) {
+            try {
+                index = PhoneticIndex.load(Paths.get(phoneticIndexFile), words);
+            } catch (IOException e) {
+                System.err.println("Phonetic index unreadable, rebuilding " + phoneticIndexFile);
+            }
+        }
+        if (index == null) {
+            index = new PhoneticIndex(words);
+            if (phoneticIndexFile != null) {
+                try {
+                    index.save(Paths.get(phoneticIndexFile));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Loads the Bloom filter of a word graph from the filter file, or builds it and saves it there
+     * @return The Bloom filter
+     */
+    private BlockedBloomFilter bloomFilter(WordGraph words, double falsePositiveRate) {
+        BlockedBloomFilter filter = null;
+        if (bloomFilterFile != null) {
+            try {
+                filter = BlockedBloomFilter.load(Paths.get(bloomFilterFile), words, falsePositiveRate);
+            } catch (IOException e) {
+                System.err.println("Bloom filter unreadable, rebuilding " + bloomFilterFile);
+            }
+        }
+        if (filter == null) {
+            filter = new BlockedBloomFilter(words, falsePositiveRate);
+            if (bloomFilterFile != null) {
+                try {
+                    filter.save(Paths.get(bloomFilterFile), words);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Loads the deletion index of a word graph from the index file, or builds it and saves it there
+     * @return The deletion index
+     */
+    private DeletionIndex deletionIndex(WordGraph words, int maxDistance, int prefixLength) {
+        DeletionIndex index = null;
+        if (deletionIndexFile != null) {
+            try {
+                index = DeletionIndex.load(Paths.get(deletionIndexFile), words, maxDistance, prefixLength);
+            } catch (IOException e) {
+                System.err.println("Suggestion index unreadable, rebuilding " + deletionIndexFile);
+            }
+        }
+        if (index == null) {
+            index = new DeletionIndex(words, maxDistance, prefixLength);
+            if (deletionIndexFile != null) {
+                try {
+                    index.save(Paths.get(deletionIndexFile), words);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Compiles a dictionary text file into the binary word graph that wordList memory maps on later loads
+     * @param filename The dictionary file to be compiled
+     * @throws IOException If the text file cannot be read or the binary file cannot be written
+     */
+    public static void compile(String filename) throws IOException {
+        Path source = Paths.get(filename);
+        long size = Files.size(source);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        List<String> words = readWords(filename);
+        new WordGraph(words).save(compiledPath(source), size, modified);
+    }
+
+    /**
+     * Derives the location of the compiled copy of a dictionary file, e.g. words_alpha.dawg for words_alpha.txt
+     * @param source The dictionary text file
+     * @return The path of the compiled dictionary
+     */
+    static Path compiledPath(Path source) {
+        return sibling(source, ".dawg");
+    }
+
+    /**
+     * Derives the location of the phonetic index of a dictionary file, e.g. words_alpha.phonetic for
+     * words_alpha.txt, so every word list keeps its own
+     * @param source The dictionary text file
+     * @return The path of the phonetic index
+     */
+    static Path phoneticPath(Path source) {
+        return sibling(source, ".phonetic");
+    }
+
+    /**
+     * Replaces the extension of a file name, keeping the directory
+     */
+    private static Path sibling(Path source, String extension) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return source.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+
+    /**
+     * Reads the whitespace separated words of a dictionary file in lower case
+     * @param filename The dictionary file to be read
+     * @return The words of the file
+     * @throws IOException If the file does not exist or cannot be read
+     */
+    private static List<String> readWords(String filename) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = -1;
+                for (int i = 0; i <= line.length(); i++) {
+                    boolean space = i == line.length() || Character.isWhitespace(line.charAt(i));
+                    if (space && start >= 0) {
+                        words.add(line.substring(start, i).toLowerCase());
+                        start = -1;
+                    } else if (!space && start < 0) {
+                        start = i;
+                    }
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Adds a misspelled word to the user's dictionary, in memory at once and then in the user dictionary file:
+     * through the journal when there is one, otherwise by appending to user_dict.txt directly
      * @param word A misspelled word
      */
     public void addUserDictionary(String word) {
+        String normalized = word.toLowerCase();
+        addUserWords(Collections.singletonList(normalized));
+        UserDictionaryJournal current = journal;
+        if (current != null) {
+            current.append(normalized);
+            return;
+        }
         try {
             BufferedWriter bw = new BufferedWriter(new FileWriter("user_dict.txt", true));
             bw.append(word);
@@ -66,23 +464,108 @@ public class Dictionary {
      * @return True if the word is in either dictionary, false otherwise
      */
     public boolean isValid(String word) {
-        word = word.replaceAll("\\W+|\\d+", "");
-        return wordSet.contains(word.toLowerCase()) || userDictionary.contains(word.toLowerCase());
+        return isValid(word, 0, word.length());
     }
 
     /**
-     * Generates suggestions for a word using a different number of algorithms
+     * Validates whether a word of a larger text exists in either dictionary, without copying it. Characters other
+     * than letters are ignored and letters are compared in lower case, as in isValid(String)
+     * @param text The text containing the word
+     * @param start The offset of the word
+     * @param end The offset after the word
+     * @return True if the word is in either dictionary, false otherwise
+     */
+    public boolean isValid(CharSequence text, int start, int end) {
+        long began = Metrics.start();
+        boolean valid = snapshot.get().isValid(text, start, end);
+        Metrics.IS_VALID.record(began);
+        return valid;
+    }
+
+    /**
+     * Generates suggestions for a word using a different number of algorithms, or from the deletion index when
+     * one is in use. Results are cached by normalized word, so repeated misspellings are only computed once
      * @param word The word being spellchecked
-     * @return A list of valid words suggested by the algorithm
+     * @return A list of valid words suggested by the algorithm, which must not be modified
      */
     public List<String> getSuggestions(String word) {
+        long began = Metrics.start();
+        List<String> suggestions = suggestionCache.get(normalize(word), this::computeSuggestions);
+        Metrics.SUGGEST.record(began);
+        return suggestions;
+    }
+
+    /**
+     * Accessor to retrieve the suggestion cache, e.g. to read its hit and miss counts
+     * @return the suggestion cache
+     */
+    public SuggestionCache getSuggestionCache() {
+        return suggestionCache;
+    }
+
+    /**
+     * Normalizes a word the way it is looked up in the dictionaries: letters only, in lower case
+     * @param word The word as written
+     * @return The normalized word
+     */
+    private static String normalize(String word) {
+        return normalize(word, 0, word.length());
+    }
+
+    private static String normalize(CharSequence text, int start, int end) {
+        StringBuilder normalized = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Computes the suggestions of a normalized word without the cache, topped up with sound-alike words when there
+     * are few, and ranked by frequency when counts are loaded
+     * @param word The normalized word
+     * @return An unmodifiable list of valid words suggested by the algorithm
+     */
+    private List<String> computeSuggestions(String word) {
+        Snapshot current = snapshot.get();
+        List<String> suggestions = candidates(current, word);
+        if (current.phoneticIndex != null && suggestions.size() < SCARCE_SUGGESTIONS) {
+            soundsLike(current, word, suggestions);
+        }
+        if (current.frequencies != null) {
+            suggestions = current.frequencies.rank(word, suggestions, RANKED_SUGGESTIONS);
+        }
+        return Collections.unmodifiableList(suggestions);
+    }
+
+    /**
+     * Generates the valid words near a normalized word
+     * @param current The snapshot the suggestions are computed against
+     * @param word The normalized word
+     * @return The suggestions in the order they were generated
+     */
+    private List<String> candidates(Snapshot current, String word) {
+        DeletionIndex index = current.deletionIndex;
+        if (index != null) {
+            List<String> suggestions = index.lookup(word);
+            for (String userWord : current.userDictionary) {
+                int distance = EditDistance.distance(word, userWord, index.getMaxDistance());
+                if (distance > 0 && distance <= index.getMaxDistance() && !suggestions.contains(userWord)) {
+                    suggestions.add(userWord);
+                }
+            }
+            return suggestions;
+        }
 
         List<String> suggestions = new ArrayList<>();
 
         // generate suggestions by removing letters
         for (int i = 0; i < word.length(); i++) {
             String suggestion = word.substring(0, i) + word.substring(i + 1);
-            if (isValidSuggestion(suggestion)) {
+            if (isValidSuggestion(current, suggestion)) {
                 suggestions.add(suggestion);
             }
         }
@@ -91,7 +574,7 @@ public class Dictionary {
         for (char c = 'a'; c <= 'z'; c++) {
             for (int i = 0; i <= word.length(); i++) {
                 String suggestion = word.substring(0, i) + c + word.substring(i);
-                if (isValidSuggestion(suggestion)) {
+                if (isValidSuggestion(current, suggestion)) {
                     suggestions.add(suggestion);
                 }
             }
@@ -100,7 +583,7 @@ public class Dictionary {
         // generate suggestions by swapping consecutive letters
         for (int i = 0; i < word.length() - 1; i++) {
             String suggestion = word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
-            if (isValidSuggestion(suggestion)) {
+            if (isValidSuggestion(current, suggestion)) {
                 suggestions.add(suggestion);
             }
         }
@@ -110,26 +593,205 @@ public class Dictionary {
             String suggestionSpace = word.substring(0, i) + " " + word.substring(i);
             String suggestionHyphen = word.substring(0, i) + "-" + word.substring(i);
 
-            if (isValidSuggestion(suggestionSpace)) {
+            if (isValidSuggestion(current, suggestionSpace)) {
                 suggestions.add(suggestionSpace);
             }
 
-            if (isValidSuggestion(suggestionHyphen)) {
+            if (isValidSuggestion(current, suggestionHyphen)) {
                 suggestions.add(suggestionHyphen);
             }
         }
         return suggestions;
     }
 
+    /**
+     * Adds the dictionary and user words that sound like a normalized word to its suggestions
+     * @param current The snapshot the suggestions are computed against
+     * @param word The normalized word
+     * @param suggestions The suggestions found so far, which the new words are appended to
+     */
+    private static void soundsLike(Snapshot current, String word, List<String> suggestions) {
+        for (String soundAlike : current.phoneticIndex.lookup(word, RANKED_SUGGESTIONS)) {
+            if (!suggestions.contains(soundAlike)) {
+                suggestions.add(soundAlike);
+            }
+        }
+        for (String userWord : current.userDictionary) {
+            if (!userWord.equals(word) && !suggestions.contains(userWord) && PhoneticIndex.soundsLike(word, userWord)) {
+                suggestions.add(userWord);
+            }
+        }
+    }
+
+    /**
+     * Finds the closest dictionary words to a misspelled word, ranked by edit distance
+     * @param word The word being spellchecked
+     * @param maxDistance The largest number of insertions, deletions, substitutions and swaps of a suggestion
+     * @param limit The maximum number of suggestions
+     * @return At most limit valid words, closest first and alphabetically within the same distance
+     */
+    public List<String> getSuggestions(String word, int maxDistance, int limit) {
+        Snapshot current = snapshot.get();
+        LevenshteinSearch search = new LevenshteinSearch(word.toLowerCase(), maxDistance, limit)
+                .search(current.wordSet);
+        for (String userWord : current.userDictionary) {
+            search.offer(userWord);
+        }
+        return search.getResults();
+    }
+
+    /**
+     * Completes a prefix with the words starting with it, e.g. to offer type-ahead in an editor. The words are found
+     * by descending the word graph along the prefix, so the cost depends on the prefix and the number of
+     * completions but not on the size of the dictionary
+     * @param prefix The typed prefix; case and characters other than letters are ignored
+     * @param limit The maximum number of completions
+     * @param byFrequency True to put the most common words first when word frequencies are loaded
+     * @return At most limit words in lower case starting with the prefix, the prefix itself included when it is a
+     *         word; the most common first if ranked, the others alphabetically. Empty if limit is not positive
+     */
+    public List<String> complete(String prefix, int limit, boolean byFrequency) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        Snapshot current = snapshot.get();
+        String normalized = normalize(prefix);
+        long range = current.wordSet.prefixRange(normalized);
+        int from = (int) (range >>> 32);
+        int to = (int) range;
+        int[] ranked = byFrequency && current.frequencies != null ? current.frequencies.top(from, to, limit)
+                : new int[0];
+        List<String> completions = new ArrayList<>(limit);
+        for (int id : ranked) {
+            completions.add(current.wordSet.wordAt(id));
+        }
+
+        // the rest in alphabetical order, the user's words merged with the first unranked words of the range
+        int wanted = limit - completions.size();
+        List<String> alphabetical = new ArrayList<>();
+        for (int id = from; id < to && alphabetical.size() < wanted; id++) {
+            if (!contains(ranked, id)) {
+                alphabetical.add(current.wordSet.wordAt(id));
+            }
+        }
+        for (String userWord : current.userDictionary) {
+            if (userWord.startsWith(normalized) && !current.wordSet.contains(userWord)) {
+                alphabetical.add(userWord);
+            }
+        }
+        Collections.sort(alphabetical);
+        completions.addAll(alphabetical.subList(0, Math.min(wanted, alphabetical.size())));
+        return completions;
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int i : ids) {
+            if (i == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Helper method to check if a suggested word is also a valid word
+     * @param current The snapshot the suggestions are computed against
      * @param suggestion The suggested word
      * @return True if valid, false otherwise
      */
-    private boolean isValidSuggestion (String suggestion){
-        if (userDictionary != null) {
-            return wordSet.contains(suggestion) || userDictionary.contains(suggestion);
-        } else
-            return wordSet.contains(suggestion);
+    private static boolean isValidSuggestion (Snapshot current, String suggestion){
+        return current.wordSet.contains(suggestion) || current.userDictionary.contains(suggestion);
+    }
+
+    /**
+     * Immutable state of a dictionary: the compact word graph, the user's words, and the optional deletion index,
+     * word frequencies, Bloom filter and phonetic index
+     */
+    public static final class Snapshot {
+        private final WordGraph wordSet;
+        private final Set<String> userDictionary;
+        private final DeletionIndex deletionIndex;
+        private final WordFrequencies frequencies;
+        private final BlockedBloomFilter filter;
+        private final PhoneticIndex phoneticIndex;
+
+        Snapshot(WordGraph wordSet, Set<String> userDictionary, DeletionIndex deletionIndex,
+                 WordFrequencies frequencies, BlockedBloomFilter filter, PhoneticIndex phoneticIndex) {
+            this.wordSet = wordSet;
+            this.userDictionary = userDictionary;
+            this.deletionIndex = deletionIndex;
+            this.frequencies = frequencies;
+            this.filter = filter;
+            this.phoneticIndex = phoneticIndex;
+        }
+
+        /**
+         * Copies the snapshot with more user words
+         * @param added The words to be added, in lower case
+         * @return The new snapshot
+         */
+        Snapshot withUserWords(Collection<String> added) {
+            Set<String> union = new HashSet<>(userDictionary);
+            union.addAll(added);
+            return new Snapshot(wordSet, Collections.unmodifiableSet(union), deletionIndex, frequencies, filter,
+                    phoneticIndex);
+        }
+
+        /**
+         * Copies the snapshot with fewer user words
+         * @param removed The words to be removed, in lower case
+         * @return The new snapshot
+         */
+        Snapshot withoutUserWords(Collection<String> removed) {
+            Set<String> difference = new HashSet<>(userDictionary);
+            difference.removeAll(removed);
+            return new Snapshot(wordSet, Collections.unmodifiableSet(difference), deletionIndex, frequencies, filter,
+                    phoneticIndex);
+        }
+
+        /**
+         * Validates whether a word of a larger text exists in either dictionary, without copying it
+         * @param text The text containing the word
+         * @param start The offset of the word
+         * @param end The offset after the word
+         * @return True if the word is in either dictionary, false otherwise
+         */
+        public boolean isValid(CharSequence text, int start, int end) {
+            if (filter != null && !filter.mightContain(text, start, end)) {
+                // certainly not in the word graph; the user's words are not in the filter
+                return !userDictionary.isEmpty() && userDictionary.contains(normalize(text, start, end));
+            }
+            int state = wordSet.root();
+            int arc = WordGraph.NONE;
+            boolean found = true;
+            for (int i = start; i < end && found; i++) {
+                char c = text.charAt(i);
+                if (Character.isLetter(c)) {
+                    arc = wordSet.findArc(state, Character.toLowerCase(c));
+                    found = arc != WordGraph.NONE;
+                    state = found ? wordSet.target(arc) : WordGraph.NONE;
+                }
+            }
+            if (found && arc != WordGraph.NONE && wordSet.isFinal(arc)) {
+                return true;
+            }
+            return !userDictionary.isEmpty() && userDictionary.contains(normalize(text, start, end));
+        }
+
+        /**
+         * Accessor to retrieve the number of words in the main dictionary
+         * @return the number of words
+         */
+        public int size() {
+            return wordSet.size();
+        }
+
+        /**
+         * Accessor to retrieve the user's words
+         * @return the unmodifiable set of user words, in lower case
+         */
+        public Set<String> getUserWords() {
+            return userDictionary;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,523 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * @author gsotelo
+ * Repeatable benchmarks of the dictionary load, lookup and suggestion paths, of tokenizing and of checking a fixed
+ * corpus, on one thread and in parallel. Run with --out to save the results and with --baseline to compare them
+ * with an earlier run
+ */
+public class DictionaryBenchmarks {
+
+    /**
+     * Runs the benchmarks
+     * @param args [--dictionary FILE] [--filter REGEX] [--warmup N] [--iterations N] [--time MILLIS] [--out FILE]
+     *             [--baseline FILE]
+     */
+    public static void main(String[] args) throws IOException {
+        String filename = "words_alpha.txt";
+        Pattern filter = Pattern.compile(".*");
+        int warmup = 5;
+        int iterations = 5;
+        long millis = 1000;
+        String out = null;
+        String baseline = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--dictionary":
+                    filename = args[i + 1];
+                    break;
+                case "--filter":
+                    filter = Pattern.compile(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--time":
+                    millis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--out":
+                    out = args[i + 1];
+                    break;
+                case "--baseline":
+                    baseline = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, millis);
+        String dictionaryFile = filename;
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList(dictionaryFile);
+        List<String> words = readWords(dictionaryFile);
+        if (words.isEmpty()) {
+            return;
+        }
+
+        if (selected(filter, "load.text", "load.mapped")) {
+            // load a copy, so the compiled dictionary next to the original is neither used nor touched
+            Path scratch = Files.createTempDirectory("benchmarks");
+            Path copy = Files.copy(Paths.get(dictionaryFile), scratch.resolve("words.txt"),
+                    StandardCopyOption.COPY_ATTRIBUTES);
+            Path compiled = Dictionary.compiledPath(copy);
+            if (filter.matcher("load.text").matches()) {
+                runner.run("load.text", 1, () -> {
+                    Dictionary loaded = new Dictionary();
+                    loaded.wordList(copy.toString());
+                    return loaded.isValid("a") ? 1 : 0;
+                });
+            }
+            if (filter.matcher("load.mapped").matches()) {
+                Dictionary.compile(copy.toString());
+                runner.run("load.mapped", 1, () -> {
+                    Dictionary loaded = new Dictionary();
+                    loaded.wordList(copy.toString());
+                    return loaded.isValid("a") ? 1 : 0;
+                });
+            }
+            Files.deleteIfExists(compiled);
+            Files.delete(copy);
+            Files.delete(scratch);
+        }
+
+        if (filter.matcher("footprint").matches()) {
+            printFootprint(words);
+        }
+        if (filter.matcher("build.hashSet").matches()) {
+            runner.run("build.hashSet", 1, () -> {
+                Set<String> hashSet = new HashSet<>();
+                for (String word : words) {
+                    hashSet.add(new String(word.toCharArray()));
+                }
+                return hashSet.size();
+            });
+        }
+        if (filter.matcher("build.wordGraph").matches()) {
+            runner.run("build.wordGraph", 1, () -> new WordGraph(words).size());
+        }
+        if (selected(filter, "contains.hashSet", "contains.wordGraph")) {
+            Set<String> hashSet = new HashSet<>(words);
+            WordGraph graph = new WordGraph(words);
+            String[] queries = lookupWorkload(words, 50, 4096);
+            if (filter.matcher("contains.hashSet").matches()) {
+                runner.run("contains.hashSet", queries.length, () -> {
+                    long found = 0;
+                    for (String query : queries) {
+                        found += hashSet.contains(query) ? 1 : 0;
+                    }
+                    return found;
+                });
+            }
+            if (filter.matcher("contains.wordGraph").matches()) {
+                runner.run("contains.wordGraph", queries.length, () -> {
+                    long found = 0;
+                    for (String query : queries) {
+                        found += graph.contains(query) ? 1 : 0;
+                    }
+                    return found;
+                });
+            }
+        }
+
+        Dictionary filtered = new Dictionary();
+        filtered.wordList(dictionaryFile);
+        filtered.useBloomFilter(0.01, null);
+        for (int hitPercent : new int[] {90, 10}) {
+            String workload = hitPercent == 90 ? "hitHeavy" : "missHeavy";
+            String[] queries = lookupWorkload(words, hitPercent, 4096);
+            for (Dictionary lookups : new Dictionary[] {dictionary, filtered}) {
+                String name = "isValid." + (lookups == filtered ? "bloom." : "") + workload;
+                if (filter.matcher(name).matches()) {
+                    runner.run(name, queries.length, () -> {
+                        long valid = 0;
+                        for (String query : queries) {
+                            valid += lookups.isValid(query) ? 1 : 0;
+                        }
+                        return valid;
+                    });
+                }
+            }
+        }
+
+        int[][] lengths = {{3, 4}, {5, 7}, {8, 11}, {12, 40}};
+        for (int[] range : lengths) {
+            String name = "getSuggestions.length" + range[0] + "to" + range[1];
+            if (filter.matcher(name).matches()) {
+                String[] misspelled = misspellings(words, range[0], range[1], 256);
+                SuggestionCache cache = dictionary.getSuggestionCache();
+                runner.run(name, misspelled.length, () -> {
+                    long found = 0;
+                    for (String word : misspelled) {
+                        cache.invalidate(); // measure the suggestion algorithm, not the cache
+                        found += dictionary.getSuggestions(word).size();
+                    }
+                    return found;
+                });
+            }
+        }
+
+        String[] edited = randomEdits(words, 256);
+        if (filter.matcher("getSuggestions.deletionIndex").matches()) {
+            Dictionary indexed = new Dictionary();
+            indexed.wordList(dictionaryFile);
+            indexed.useDeletionIndex(2, 9, null);
+            SuggestionCache cache = indexed.getSuggestionCache();
+            runner.run("getSuggestions.deletionIndex", edited.length, () -> {
+                long found = 0;
+                for (String word : edited) {
+                    cache.invalidate();
+                    found += indexed.getSuggestions(word).size();
+                }
+                return found;
+            });
+        }
+        for (int distance = 1; distance <= 2; distance++) {
+            String name = "getSuggestions.search.distance" + distance;
+            int maxDistance = distance;
+            if (filter.matcher(name).matches()) {
+                runner.run(name, edited.length, () -> {
+                    long found = 0;
+                    for (String word : edited) {
+                        found += dictionary.getSuggestions(word, maxDistance, 10).size();
+                    }
+                    return found;
+                });
+            }
+        }
+
+        if (filter.matcher("load.phonetic.built").matches()) {
+            runner.run("load.phonetic.built", 1, () -> {
+                Dictionary loaded = new Dictionary();
+                loaded.wordList(dictionaryFile);
+                loaded.usePhoneticIndex(null);
+                return loaded.isValid("a") ? 1 : 0;
+            });
+        }
+        if (filter.matcher("load.phonetic.mapped").matches()) {
+            Path indexFile = Files.createTempFile("words", ".phonetic");
+            Files.delete(indexFile);
+            runner.run("load.phonetic.mapped", 1, () -> {
+                Dictionary loaded = new Dictionary();
+                loaded.wordList(dictionaryFile);
+                loaded.usePhoneticIndex(indexFile.toString());
+                return loaded.isValid("a") ? 1 : 0;
+            });
+            Files.deleteIfExists(indexFile);
+        }
+        if (filter.matcher("getSuggestions.phonetic").matches()) {
+            Dictionary phonetic = new Dictionary();
+            phonetic.wordList(dictionaryFile);
+            phonetic.usePhoneticIndex(null);
+            String[] misspelled = misspellings(words, 5, 11, 256);
+            SuggestionCache cache = phonetic.getSuggestionCache();
+            runner.run("getSuggestions.phonetic", misspelled.length, () -> {
+                long found = 0;
+                for (String word : misspelled) {
+                    cache.invalidate();
+                    found += phonetic.getSuggestions(word).size();
+                }
+                return found;
+            });
+        }
+
+        Dictionary ranked = null;
+        for (int length = 1; length <= 3; length++) {
+            String[] prefixes = prefixes(words, length, 256);
+            for (boolean byFrequency : new boolean[] {false, true}) {
+                String name = "complete." + (byFrequency ? "ranked" : "alphabetical") + ".prefix" + length;
+                if (!filter.matcher(name).matches()) {
+                    continue;
+                }
+                if (byFrequency && ranked == null) {
+                    ranked = rankedDictionary(dictionaryFile, words);
+                }
+                Dictionary completions = byFrequency ? ranked : dictionary;
+                runner.run(name, prefixes.length, () -> {
+                    long found = 0;
+                    for (String prefix : prefixes) {
+                        found += completions.complete(prefix, 10, byFrequency).size();
+                    }
+                    return found;
+                });
+            }
+        }
+
+        String corpus = corpus(words, 20_000);
+        if (selected(filter, "tokenize.regex", "tokenize.tokenizer")) {
+            int tokens = 0;
+            for (Tokenizer tokenizer = new Tokenizer(corpus); tokenizer.next(); ) {
+                tokens++;
+            }
+            if (filter.matcher("tokenize.regex").matches()) {
+                runner.run("tokenize.regex", tokens, () -> {
+                    long invalid = 0;
+                    for (String sentence : corpus.split("\\. ")) {
+                        for (String word : sentence.split(" ")) {
+                            String letters = word.replaceAll("\\W+|\\d+", "");
+                            if (!dictionary.isValid(letters) && !word.matches(".*\\d.*")) {
+                                invalid++;
+                            }
+                        }
+                    }
+                    return invalid;
+                });
+            }
+            if (filter.matcher("tokenize.tokenizer").matches()) {
+                runner.run("tokenize.tokenizer", tokens, () -> {
+                    long invalid = 0;
+                    Tokenizer tokenizer = new Tokenizer(corpus);
+                    while (tokenizer.next()) {
+                        if (!tokenizer.hasDigit() && !dictionary.isValid(corpus, tokenizer.start(), tokenizer.end())) {
+                            invalid++;
+                        }
+                    }
+                    return invalid;
+                });
+            }
+        }
+
+        Spellchecker spellchecker = new Spellchecker(dictionary);
+        if (filter.matcher("check.corpus").matches()) {
+            runner.run("check.corpus", 1, () -> spellchecker.check(corpus).size());
+        }
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            String name = "check.parallel.threads" + threads;
+            if (filter.matcher(name).matches()) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                ParallelChecker checker = new ParallelChecker(spellchecker, pool);
+                runner.run(name, 1, () -> checker.check(corpus).size());
+                pool.shutdown();
+            }
+        }
+
+        if (out != null) {
+            runner.save(Paths.get(out));
+        }
+        if (baseline != null) {
+            runner.compare(Paths.get(baseline));
+        }
+    }
+
+    /**
+     * Prints the heap retained by a HashSet of the words and by the word graph, which a timed run cannot show
+     * @param words The dictionary words
+     */
+    private static void printFootprint(List<String> words) {
+        long before = usedHeap();
+        Set<String> hashSet = new HashSet<>();
+        for (String word : words) {
+            hashSet.add(new String(word.toCharArray()));
+        }
+        long hashSetBytes = usedHeap() - before;
+        before = usedHeap();
+        WordGraph graph = new WordGraph(words);
+        long graphBytes = usedHeap() - before;
+        System.out.printf(Locale.ROOT, "%-40s %,d bytes retained%n", "footprint.hashSet", hashSetBytes);
+        System.out.printf(Locale.ROOT, "%-40s %,d bytes retained (%d arcs)%n", "footprint.wordGraph", graphBytes,
+                graph.arcCount());
+        // keep both structures reachable until they are measured
+        if (hashSet.size() != graph.size()) {
+            System.err.println("Size mismatch: " + hashSet.size() + " vs " + graph.size());
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Tests whether any of some benchmarks is selected, to skip their common setup otherwise
+     * @param filter The pattern selecting benchmarks by name
+     * @param names The names of the benchmarks
+     * @return True if the filter matches any of the names
+     */
+    private static boolean selected(Pattern filter, String... names) {
+        for (String name : names) {
+            if (filter.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds a lookup workload of dictionary words and words that are not in the dictionary
+     * @param words The dictionary words
+     * @param hitPercent The percentage of dictionary words
+     * @param count The number of queries
+     * @return Fresh query strings in a fixed order
+     */
+    private static String[] lookupWorkload(List<String> words, int hitPercent, int count) {
+        Random random = new Random(1);
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            queries[i] = random.nextInt(100) < hitPercent ? new String(word.toCharArray())
+                    : word + (char) ('a' + random.nextInt(26)) + 'q';
+        }
+        return queries;
+    }
+
+    /**
+     * Misspells dictionary words of a range of lengths with one substitution and one transposition
+     * @param words The dictionary words
+     * @param minLength The shortest word length
+     * @param maxLength The longest word length
+     * @param count The number of misspelled words
+     * @return The misspelled words in a fixed order
+     */
+    private static String[] misspellings(List<String> words, int minLength, int maxLength, int count) {
+        Random random = new Random(minLength);
+        String[] misspelled = new String[count];
+        for (int i = 0; i < count; ) {
+            String word = words.get(random.nextInt(words.size()));
+            if (word.length() < minLength || word.length() > maxLength) {
+                continue;
+            }
+            char[] letters = word.toCharArray();
+            letters[random.nextInt(letters.length)] = (char) ('a' + random.nextInt(26));
+            int swap = random.nextInt(letters.length - 1);
+            char c = letters[swap];
+            letters[swap] = letters[swap + 1];
+            letters[swap + 1] = c;
+            misspelled[i++] = new String(letters);
+        }
+        return misspelled;
+    }
+
+    /**
+     * Misspells dictionary words with one or two random deletions, insertions or substitutions
+     * @param words The dictionary words
+     * @param count The number of misspelled words
+     * @return The misspelled words in a fixed order
+     */
+    private static String[] randomEdits(List<String> words, int count) {
+        Random random = new Random(7);
+        String[] misspelled = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder word = new StringBuilder(words.get(random.nextInt(words.size())));
+            for (int edit = 0; edit <= i % 2 && word.length() > 1; edit++) {
+                int position = random.nextInt(word.length());
+                char letter = (char) ('a' + random.nextInt(26));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        word.deleteCharAt(position);
+                        break;
+                    case 1:
+                        word.insert(position, letter);
+                        break;
+                    default:
+                        word.setCharAt(position, letter);
+                }
+            }
+            misspelled[i] = word.toString();
+        }
+        return misspelled;
+    }
+
+    /**
+     * Picks a fixed sample of word prefixes
+     * @param words The dictionary words
+     * @param length The length of the prefixes
+     * @param count The number of prefixes
+     * @return The prefixes
+     */
+    private static String[] prefixes(List<String> words, int length, int count) {
+        Random random = new Random(length);
+        String[] prefixes = new String[count];
+        for (int i = 0; i < count; ) {
+            String word = words.get(random.nextInt(words.size()));
+            if (word.length() >= length) {
+                prefixes[i++] = word.substring(0, length);
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Loads the dictionary with made up Zipf distributed word counts, for the benchmarks ranked by frequency
+     * @param dictionaryFile The dictionary file
+     * @param words The dictionary words
+     * @return The dictionary with word frequencies
+     * @throws IOException If the counts cannot be written to a temporary file
+     */
+    private static Dictionary rankedDictionary(String dictionaryFile, List<String> words) throws IOException {
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, new Random(42));
+        StringBuilder counts = new StringBuilder();
+        for (int rank = 0; rank < shuffled.size(); rank++) {
+            counts.append(shuffled.get(rank)).append(' ').append(1_000_000_000L / (rank + 1)).append('\n');
+        }
+        Path file = Files.createTempFile("frequencies", ".txt");
+        Files.writeString(file, counts);
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList(dictionaryFile);
+        dictionary.useFrequencies(file.toString());
+        Files.delete(file);
+        return dictionary;
+    }
+
+    /**
+     * Builds a fixed corpus of capitalized sentences with some misspellings and repeated words
+     * @param words The dictionary words
+     * @param sentences The number of sentences
+     * @return The corpus
+     */
+    private static String corpus(List<String> words, int sentences) {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            int length = 5 + random.nextInt(15);
+            for (int j = 0; j < length; j++) {
+                String word = words.get(random.nextInt(words.size()));
+                if (random.nextInt(50) == 0) {
+                    word = word + word.charAt(0);
+                }
+                if (j == 0) {
+                    word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                }
+                text.append(word).append(j == length - 1 ? "" : random.nextInt(200) == 0 ? " " + word + " " : " ");
+            }
+            text.append(i % 8 == 7 ? ".\n" : ". ");
+        }
+        return text.toString();
+    }
+
+    private static List<String> readWords(String filename) {
+        List<String> words = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Paths.get(filename))) {
+                for (String word : line.trim().split("\\s+")) {
+                    if (!word.isEmpty()) {
+                        words.add(word.toLowerCase());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Dictionary file not found: " + filename);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,27 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * @author gsotelo
+ * Compiles dictionary text files into the binary format Dictionary memory maps at startup
+ */
+public class DictionaryCompiler {
+
+    /**
+     * Compiles each dictionary file given on the command line, words_alpha.txt by default
+     * @param args The dictionary files to be compiled
+     */
+    public static void main(String[] args) {
+        String[] files = args.length > 0 ? args : new String[] {"words_alpha.txt"};
+        for (String file : files) {
+            try {
+                long start = System.nanoTime();
+                Dictionary.compile(file);
+                System.out.printf("Compiled %s into %s in %d ms%n", file, Dictionary.compiledPath(Paths.get(file)),
+                        (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                System.err.println("Could not compile " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * @author gsotelo
+ * Scrollable view of a large plain text document that highlights findings. The text area does not wrap lines, so
+ * only the lines inside the viewport are laid out and painted. Findings are neither copied into the view nor
+ * added to the highlighter one by one: each paint asks the checker for those overlapping the painted area only,
+ * so scrolling and typing cost the same whatever the size of the document or the number of findings
+ */
+public class DocumentView extends JScrollPane {
+    private static final long serialVersionUID = 1L;
+    private static final Color UNDERLINE = new Color(220, 40, 40);
+
+    private final JTextArea area = new JTextArea();
+    private IncrementalChecker checker;
+    private int paintedFindings;
+
+    /**
+     * Constructor creates an empty view
+     */
+    public DocumentView() {
+        area.setLineWrap(false);
+        area.setHighlighter(new FindingHighlighter());
+        setViewportView(area);
+    }
+
+    /**
+     * Highlights the findings of a checker following the document. Must be called on the event dispatch thread
+     * @param checker The checker, or null to highlight nothing
+     */
+    public void setChecker(IncrementalChecker checker) {
+        this.checker = checker;
+        area.repaint();
+    }
+
+    /**
+     * Accessor to retrieve the number of highlighted findings
+     * @return the number of findings, visible or not
+     */
+    public int getFindingCount() {
+        return checker == null ? 0 : checker.getFindingCount();
+    }
+
+    /**
+     * Accessor to retrieve the number of findings the last paint drew
+     * @return the number of findings overlapping the last painted area
+     */
+    public int getPaintedFindings() {
+        return paintedFindings;
+    }
+
+    /**
+     * Accessor to retrieve the text area, e.g. to set its text or font
+     * @return the text area
+     */
+    public JTextArea getTextArea() {
+        return area;
+    }
+
+    /**
+     * Accessor to retrieve the document shown
+     * @return the document of the text area
+     */
+    public Document getDocument() {
+        return area.getDocument();
+    }
+
+    /**
+     * Paints the selection as usual, then underlines the findings inside the painted area
+     */
+    private final class FindingHighlighter extends DefaultHighlighter {
+        @Override
+        public void paint(Graphics g) {
+            super.paint(g);
+            Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : area.getVisibleRect();
+            int length = area.getDocument().getLength();
+            int from = area.viewToModel2D(new Point(clip.x, clip.y));
+            int to = area.viewToModel2D(new Point(clip.x + clip.width, clip.y + clip.height));
+            if (checker == null || from < 0 || to < 0) {
+                return;
+            }
+            g.setColor(UNDERLINE);
+            int painted = 0;
+            for (Finding finding : checker.getFindings(from, to + 1)) {
+                // offsets may be a recheck behind the latest edit
+                int start = (int) Math.min(finding.getStart(), length);
+                int end = (int) Math.min(finding.getEnd(), length);
+                if (start < end) {
+                    underline(g, start, end);
+                    painted++;
+                }
+            }
+            paintedFindings = painted;
+        }
+
+        /**
+         * Draws a zigzag line under a span of text on one line
+         */
+        private void underline(Graphics g, int start, int end) {
+            try {
+                Rectangle2D first = area.modelToView2D(start);
+                Rectangle2D last = area.modelToView2D(end);
+                int y = (int) (first.getY() + first.getHeight()) - 2;
+                int right = (int) Math.max(last.getX(), first.getX() + 2);
+                for (int x = (int) first.getX(); x < right; x += 2) {
+                    g.drawLine(x, y + (x / 2 % 2), x + 2, y + 1 - (x / 2 % 2));
+                }
+            } catch (BadLocationException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
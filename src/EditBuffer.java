@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author gsotelo
+ * Records corrections to a text as (offset, length, replacement) edits against the original and renders the
+ * corrected text in one pass, copying everything between the edits unchanged. Edits are kept sorted by offset;
+ * adding them in the order of the text costs O(1) each, so rendering k edits of an n character text is O(n + k)
+ */
+public class EditBuffer {
+    private final CharSequence original;
+    private int[] offsets = new int[16];
+    private int[] lengths = new int[16];
+    private String[] replacements = new String[16];
+    private int size;
+
+    /**
+     * Constructor creates an edit buffer without any edits
+     * @param original The text the edits apply to, which must not change while the buffer is in use
+     */
+    public EditBuffer(CharSequence original) {
+        this.original = original;
+    }
+
+    /**
+     * Replaces a span of the original text. An edit of exactly the same span as an earlier one takes its place
+     * @param offset The offset of the span in the original text
+     * @param length The length of the span, 0 to insert
+     * @param replacement The text that replaces the span
+     * @throws IllegalArgumentException If the span lies outside the text or overlaps another edit
+     */
+    public void replace(int offset, int length, String replacement) {
+        if (offset < 0 || length < 0 || offset + length > original.length()) {
+            throw new IllegalArgumentException("Edit [" + offset + ", " + (offset + length) + ") outside text of "
+                    + original.length() + " characters");
+        }
+        int index = insertionPoint(offset);
+        if (index > 0 && offsets[index - 1] == offset && lengths[index - 1] == length) {
+            replacements[index - 1] = replacement;
+            return;
+        }
+        if (overlaps(index - 1, offset, length) || overlaps(index, offset, length)) {
+            throw new IllegalArgumentException("Edit [" + offset + ", " + (offset + length)
+                    + ") overlaps an earlier edit");
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            replacements = Arrays.copyOf(replacements, size * 2);
+        }
+        System.arraycopy(offsets, index, offsets, index + 1, size - index);
+        System.arraycopy(lengths, index, lengths, index + 1, size - index);
+        System.arraycopy(replacements, index, replacements, index + 1, size - index);
+        offsets[index] = offset;
+        lengths[index] = length;
+        replacements[index] = replacement;
+        size++;
+    }
+
+    /**
+     * Checks whether a span can be edited without overlapping an earlier edit of another span
+     * @param offset The offset of the span in the original text
+     * @param length The length of the span
+     * @return True if the span overlaps an edit
+     */
+    public boolean overlaps(int offset, int length) {
+        int index = insertionPoint(offset);
+        if (index > 0 && offsets[index - 1] == offset && lengths[index - 1] == length) {
+            return false;
+        }
+        return overlaps(index - 1, offset, length) || overlaps(index, offset, length);
+    }
+
+    /**
+     * Writes the corrected text
+     * @param out Receives the original text with every edit applied
+     * @throws IOException If out cannot be written
+     */
+    public void render(Appendable out) throws IOException {
+        int copied = 0;
+        for (int i = 0; i < size; i++) {
+            out.append(original, copied, offsets[i]).append(replacements[i]);
+            copied = offsets[i] + lengths[i];
+        }
+        out.append(original, copied, original.length());
+    }
+
+    /**
+     * Accessor to retrieve the number of edits
+     * @return the number of edits
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Renders the corrected text
+     * @return The original text with every edit applied
+     */
+    @Override
+    public String toString() {
+        StringBuilder corrected = new StringBuilder(original.length());
+        try {
+            render(corrected);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder does not throw
+        }
+        return corrected.toString();
+    }
+
+    /**
+     * Finds where an edit at an offset goes among the sorted edits, after the edits at the same offset
+     * @param offset The offset of the edit
+     * @return The index the edit is inserted at
+     */
+    private int insertionPoint(int offset) {
+        if (size == 0 || offsets[size - 1] <= offset) {
+            return size;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (offsets[middle] <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether the edit at an index overlaps a span; edits at the same offset always overlap, since their
+     * order would be ambiguous
+     */
+    private boolean overlaps(int index, int offset, int length) {
+        if (index < 0 || index >= size) {
+            return false;
+        }
+        return offsets[index] == offset
+                || (offsets[index] < offset + length && offset < offsets[index] + lengths[index]);
+    }
+}
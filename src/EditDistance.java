@@ -0,0 +1,75 @@
+/**
+ * @author gsotelo
+ * Computes the Damerau-Levenshtein (optimal string alignment) distance between two words: the number of
+ * insertions, deletions, substitutions and swaps of adjacent letters needed to turn one into the other
+ */
+public class EditDistance {
+
+    private EditDistance() {
+    }
+
+    /**
+     * Computes the distance between two words, giving up as soon as it is known to exceed a maximum
+     * @param a The first word
+     * @param b The second word
+     * @param max The largest distance of interest
+     * @return The distance between the words, or max + 1 if it is larger than max
+     */
+    public static int distance(CharSequence a, CharSequence b, int max) {
+        return distance(a, b, 0, b.length(), max);
+    }
+
+    /**
+     * Computes the distance between a word and a range of characters, giving up as soon as it is known to
+     * exceed a maximum
+     * @param a The first word
+     * @param b The characters holding the second word
+     * @param from The start of the second word in b
+     * @param to The end of the second word in b
+     * @param max The largest distance of interest
+     * @return The distance between the words, or max + 1 if it is larger than max
+     */
+    public static int distance(CharSequence a, CharSequence b, int from, int to, int max) {
+        int n = a.length();
+        int m = to - from;
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        // only cells within max of the diagonal can stay at or below max, the rest are capped at max + 1
+        int capped = max + 1;
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = Math.min(j, capped);
+        }
+        for (int i = 1; i <= n; i++) {
+            int low = Math.max(1, i - max);
+            int high = Math.min(m, i + max);
+            current[low - 1] = low == 1 ? Math.min(i, capped) : capped;
+            int rowMin = capped;
+            char ca = a.charAt(i - 1);
+            for (int j = low; j <= high; j++) {
+                char cb = b.charAt(from + j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(from + j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = Math.min(value, capped);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (high < m) {
+                current[high + 1] = capped;
+            }
+            if (rowMin > max) {
+                return capped;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author gsotelo
+ * Holds a problem found by the spellchecker: its type, the offsets of the text it covers and its suggested
+ * replacements for that text
+ */
+public class Finding extends CheckWord {
+    /**
+     * The kinds of problems the spellchecker detects, with the title shown to the user
+     */
+    public enum Type {
+        MISSPELLING("Misspelled Word"),
+        DOUBLE_WORD("Double Word Repetition"),
+        SENTENCE_CAPITALIZATION("First word in sentence should be capitalized"),
+        MIXED_CAPITALIZATION("Mixed Capitalization");
+
+        private final String title;
+
+        Type(String title) {
+            this.title = title;
+        }
+
+        /**
+         * Accessor to retrieve the description of the problem
+         * @return the title of the problem
+         */
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private Type type;
+    private long start;
+    private long end;
+    private boolean remembered;
+
+    /**
+     * Constructor to initialize a finding
+     * @param type The kind of problem
+     * @param originalWord The word the problem was found in
+     * @param start The offset of the first character the suggestions replace
+     * @param end The offset after the last character the suggestions replace
+     * @param suggestedWords A list of suggested replacements for the text between start and end
+     */
+    public Finding(Type type, String originalWord, long start, long end, List<String> suggestedWords) {
+        super(originalWord, suggestedWords);
+        this.type = type;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Constructor to initialize a finding resolved by a remembered decision of the user
+     * @param type The kind of problem
+     * @param originalWord The word the problem was found in
+     * @param start The offset of the first character the replacement replaces
+     * @param end The offset after the last character the replacement replaces
+     * @param replacement The replacement the user chose before
+     */
+    public Finding(Type type, String originalWord, long start, long end, String replacement) {
+        this(type, originalWord, start, end, Collections.singletonList(replacement));
+        this.remembered = true;
+    }
+
+    /**
+     * Accessor to retrieve the kind of problem
+     * @return the type of the finding
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Accessor to retrieve the offset the finding starts at. A double word covers the separator before the
+     * repeated word too, so that deleting the finding leaves a single separator
+     * @return the offset of the first character
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Accessor to retrieve the offset the finding ends at
+     * @return the offset after the last character
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Accessor to retrieve whether the finding was resolved by a remembered decision, in which case its only
+     * suggestion is the replacement the user chose before
+     * @return true if the replacement can be applied without asking
+     */
+    public boolean isRemembered() {
+        return remembered;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + getOriginalWord() + " [" + start + ", " + end + ") " + getSuggestedWords();
+    }
+}
@@ -0,0 +1,484 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * @author gsotelo
+ * Keeps the findings of a text up to date as it is edited, re-checking only the sentences an edit touches. The
+ * text is tiled into sentences, each holding its findings relative to its own start. Tiles are kept in two stacks
+ * around a gap at the last edit: tiles before the gap know their offset from the start of the text and tiles after
+ * it their offset from the end, so an edit shifts nothing and costs time proportional to the distance from the
+ * previous edit plus the size of the change. Results are also remembered by sentence content hash, so a sentence
+ * that comes back unchanged, e.g. after an undo, is not checked again
+ */
+public class IncrementalChecker {
+    static final int REMEMBERED_SENTENCES = 1024;
+    // sentences an attached checker checks per hold of the document's read lock, so writers never wait long
+    static final int SENTENCES_PER_LOCK = 16;
+
+    private final Spellchecker spellchecker;
+    // tiles before the gap, in text order, positioned from the start of the text
+    private final List<Sentence> before = new ArrayList<>();
+    // tiles after the gap, in reverse text order, positioned from the end of the text
+    private final List<Sentence> after = new ArrayList<>();
+    // tiles changed by edits and not re-checked yet
+    private final List<Sentence> dirty = new ArrayList<>();
+    private final Map<Long, Sentence> remembered = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Sentence> eldest) {
+            return size() > REMEMBERED_SENTENCES;
+        }
+    };
+    private int textLength;
+    private int findingCount;
+    // counts invalidations, so a sentence checked against the words of before one is checked again
+    private int generation;
+    private long checkedSentences;
+
+    private Document document;
+    private DocumentListener listener;
+    private volatile BlockingQueue<int[]> edits;
+    private Thread worker;
+
+    /**
+     * Constructor creates a checker for an empty text
+     * @param spellchecker The engine the sentences are checked with
+     */
+    public IncrementalChecker(Spellchecker spellchecker) {
+        this.spellchecker = spellchecker;
+    }
+
+    /**
+     * Records an edit of the text. Only the touched sentences are marked; they are checked by the next recheck
+     * @param offset The offset of the edit
+     * @param removed The number of characters removed at offset
+     * @param inserted The number of characters inserted at offset
+     */
+    public synchronized void edit(int offset, int removed, int inserted) {
+        moveGap(offset);
+        int regionStart = offset;
+        int regionEnd = offset + removed;
+        // the tile containing the offset, or ending at it, since its sentence end may depend on the next character
+        if (!before.isEmpty() && end(before.get(before.size() - 1), false) >= offset) {
+            Sentence touched = before.remove(before.size() - 1);
+            findingCount -= count(touched);
+            regionStart = touched.position;
+            regionEnd = Math.max(regionEnd, touched.position + touched.length);
+            dirty.remove(touched);
+        }
+        while (!after.isEmpty() && start(top(), true) <= offset + removed) {
+            Sentence touched = after.remove(after.size() - 1);
+            findingCount -= count(touched);
+            regionStart = Math.min(regionStart, start(touched, true));
+            regionEnd = Math.max(regionEnd, start(touched, true) + touched.length);
+            dirty.remove(touched);
+        }
+        textLength += inserted - removed;
+        regionEnd += inserted - removed;
+        if (regionEnd > regionStart) {
+            Sentence changed = new Sentence(regionStart, regionEnd - regionStart, 0, null);
+            before.add(changed);
+            dirty.add(changed);
+        }
+    }
+
+    /**
+     * Checks the sentences touched by the edits recorded since the last recheck. The lock is released while the
+     * engine checks a sentence, so findings can be read meanwhile; edit and recheck must be called by one thread
+     * @param text The whole text after the edits
+     * @return The number of sentences checked by the engine, not counting those reused by content hash
+     */
+    public int recheck(CharSequence text) {
+        return recheck(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks at most a number of the sentences touched by the edits, leaving the rest marked for a later recheck
+     * @param text The whole text after the edits
+     * @param limit The maximum number of sentences to check or reuse
+     * @return The number of sentences checked by the engine, not counting those reused by content hash
+     */
+    int recheck(CharSequence text, int limit) {
+        int checked = 0;
+        int sentences = 0;
+        while (sentences < limit) {
+            int position;
+            int regionEnd;
+            synchronized (this) {
+                if (dirty.isEmpty()) {
+                    break;
+                }
+                Sentence changed = dirty.remove(dirty.size() - 1);
+                position = start(changed, changed.afterGap);
+                moveGap(position);
+                findingCount -= count(after.remove(after.size() - 1));
+                regionEnd = position + changed.length;
+            }
+            while (position < regionEnd) {
+                if (sentences++ == limit) {
+                    // the rest of the region waits for the next recheck, in place of the tiles not made yet
+                    synchronized (this) {
+                        Sentence rest = new Sentence(position, regionEnd - position, 0, null);
+                        before.add(rest);
+                        dirty.add(rest);
+                    }
+                    break;
+                }
+                int end = Tokenizer.sentenceEnd(text, position);
+                long hash = hash(text, position, end);
+                List<Finding> findings = null;
+                int checkedGeneration;
+                synchronized (this) {
+                    checkedGeneration = generation;
+                    while (end > regionEnd) {
+                        // the sentence runs into the next tile, e.g. because its period was deleted
+                        Sentence next = after.remove(after.size() - 1);
+                        findingCount -= count(next);
+                        regionEnd += next.length;
+                        dirty.remove(next);
+                    }
+                    Sentence known = remembered.get(hash);
+                    if (known != null && known.length == end - position) {
+                        findings = known.findings;
+                    }
+                }
+                if (findings == null) {
+                    findings = new ArrayList<>();
+                    spellchecker.check(text, position, end, -position, new Spellchecker.ScanState(), findings::add);
+                    checked++;
+                }
+                Sentence sentence = new Sentence(position, end - position, hash, findings);
+                synchronized (this) {
+                    if (generation == checkedGeneration) {
+                        remembered.put(hash, sentence);
+                    } else {
+                        dirty.add(sentence);
+                    }
+                    before.add(sentence);
+                    findingCount += findings.size();
+                }
+                position = end;
+            }
+        }
+        synchronized (this) {
+            checkedSentences += checked;
+        }
+        return checked;
+    }
+
+    /**
+     * Tests whether edits or an invalidation left sentences to be checked
+     * @return True if the next recheck has work to do
+     */
+    synchronized boolean hasDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Forgets every result and checks the whole text again, e.g. after the dictionary changed
+     * @param text The whole text
+     */
+    public synchronized void reset(CharSequence text) {
+        before.clear();
+        after.clear();
+        dirty.clear();
+        remembered.clear();
+        textLength = 0;
+        findingCount = 0;
+        edit(0, 0, text.length());
+        recheck(text);
+    }
+
+    /**
+     * Forgets every result after the dictionary changed. The findings stay listed until their sentences are
+     * checked again: at once on the worker thread when a document is attached, otherwise by the next recheck
+     */
+    public void invalidate() {
+        BlockingQueue<int[]> pending;
+        synchronized (this) {
+            generation++;
+            remembered.clear();
+            dirty.clear();
+            dirty.addAll(before);
+            dirty.addAll(after);
+            pending = edits;
+        }
+        if (pending != null) {
+            pending.add(new int[] {0, 0, 0});
+        }
+    }
+
+    /**
+     * Lists the findings of every checked sentence at their offsets in the whole text. Sentences edited since the
+     * last recheck have none
+     * @return The findings in text order
+     */
+    public List<Finding> getFindings() {
+        return getFindings(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Lists the findings overlapping a range of the text, e.g. the part of it on screen. The sentences holding
+     * the range are found by binary search, so the cost does not depend on the size of the text
+     * @param from The start offset of the range
+     * @param to The end offset of the range
+     * @return The findings ending after from and starting before to, in text order
+     */
+    public synchronized List<Finding> getFindings(int from, int to) {
+        List<Finding> findings = new ArrayList<>();
+        int tiles = before.size() + after.size();
+        // the last sentence starting at or before from, as the sentences do not overlap
+        int low = 0;
+        int high = tiles - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (start(middle) <= from) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        for (int i = low; i < tiles && start(i) < to; i++) {
+            Sentence sentence = i < before.size() ? before.get(i) : after.get(tiles - 1 - i);
+            if (sentence.findings == null) {
+                continue;
+            }
+            int offset = start(i);
+            for (Finding finding : sentence.findings) {
+                if (finding.getEnd() + offset > from && finding.getStart() + offset < to) {
+                    findings.add(new Finding(finding.getType(), finding.getOriginalWord(),
+                            finding.getStart() + offset, finding.getEnd() + offset, finding.getSuggestedWords()));
+                }
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Accessor to retrieve the number of findings, kept up to date as sentences are checked
+     * @return the number of findings of every checked sentence
+     */
+    public synchronized int getFindingCount() {
+        return findingCount;
+    }
+
+    /**
+     * Accessor to retrieve the number of sentences checked by the engine since the checker was created
+     * @return the number of checked sentences
+     */
+    public synchronized long getCheckedSentences() {
+        return checkedSentences;
+    }
+
+    /**
+     * Keeps the findings of a document up to date. Edits are recorded by a document listener on the writing
+     * thread and checked on a worker thread. The worker holds the document's read lock for a few sentences at a
+     * time, taking in the edits made meanwhile each time, so typing does not wait for a long recheck
+     * @param document The document to be checked, e.g. of a text component
+     * @param onUpdate Runs on the event dispatch thread after each recheck
+     */
+    public void attach(Document document, Runnable onUpdate) {
+        detach();
+        BlockingQueue<int[]> edits = new LinkedBlockingQueue<>();
+        this.edits = edits;
+        DocumentText text = new DocumentText(document);
+        listener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                edits.add(new int[] {e.getOffset(), 0, e.getLength()});
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                edits.add(new int[] {e.getOffset(), e.getLength(), 0});
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // attribute changes do not change the text
+            }
+        };
+        this.document = document;
+        worker = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                int[] first;
+                try {
+                    first = edits.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                edit(first[0], first[1], first[2]);
+                do {
+                    // writers wait while the read lock is held, so every edit made so far is already queued
+                    document.render(() -> {
+                        for (int[] next = edits.poll(); next != null; next = edits.poll()) {
+                            edit(next[0], next[1], next[2]);
+                        }
+                        text.invalidate();
+                        recheck(text, SENTENCES_PER_LOCK);
+                    });
+                } while (hasDirty() && !Thread.currentThread().isInterrupted());
+                SwingUtilities.invokeLater(onUpdate);
+            }
+        }, "incremental-checker");
+        worker.setDaemon(true);
+        document.render(() -> {
+            synchronized (this) {
+                before.clear();
+                after.clear();
+                dirty.clear();
+                textLength = 0;
+                findingCount = 0;
+                edit(0, 0, document.getLength());
+            }
+            document.addDocumentListener(listener);
+        });
+        edits.add(new int[] {0, 0, 0});
+        worker.start();
+    }
+
+    /**
+     * Stops following the attached document, if any
+     */
+    public void detach() {
+        if (document != null) {
+            document.removeDocumentListener(listener);
+            worker.interrupt();
+            document = null;
+            edits = null;
+        }
+    }
+
+    /**
+     * Moves tiles across the gap until the tiles before it are exactly those starting before an offset
+     */
+    private void moveGap(int offset) {
+        while (!before.isEmpty() && before.get(before.size() - 1).position >= offset) {
+            Sentence moved = before.remove(before.size() - 1);
+            moved.position = textLength - moved.position;
+            moved.afterGap = true;
+            after.add(moved);
+        }
+        while (!after.isEmpty() && start(top(), true) < offset) {
+            Sentence moved = after.remove(after.size() - 1);
+            moved.position = textLength - moved.position;
+            moved.afterGap = false;
+            before.add(moved);
+        }
+    }
+
+    /**
+     * Finds where a sentence starts by its index in text order, counting the tiles before the gap first
+     */
+    private int start(int index) {
+        return index < before.size() ? before.get(index).position
+                : textLength - after.get(before.size() + after.size() - 1 - index).position;
+    }
+
+    private static int count(Sentence sentence) {
+        return sentence.findings == null ? 0 : sentence.findings.size();
+    }
+
+    private Sentence top() {
+        return after.get(after.size() - 1);
+    }
+
+    private int start(Sentence sentence, boolean afterGap) {
+        return afterGap ? textLength - sentence.position : sentence.position;
+    }
+
+    private int end(Sentence sentence, boolean afterGap) {
+        return start(sentence, afterGap) + sentence.length;
+    }
+
+    /**
+     * Hashes a span of text with 64 bit FNV-1a
+     */
+    private static long hash(CharSequence text, int start, int end) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * A tile of the text holding one sentence and its trailing whitespace
+     */
+    private static final class Sentence {
+        int position;
+        boolean afterGap;
+        final int length;
+        final long hash;
+        // offsets relative to the start of the sentence; null while the sentence waits for a recheck
+        final List<Finding> findings;
+
+        Sentence(int position, int length, long hash, List<Finding> findings) {
+            this.position = position;
+            this.length = length;
+            this.hash = hash;
+            this.findings = findings;
+        }
+    }
+
+    /**
+     * Reads a document as a CharSequence without copying it whole: characters are fetched through a window
+     * that is moved as needed. Only valid while the document's read lock is held
+     */
+    private static final class DocumentText implements CharSequence {
+        private static final int WINDOW = 4096;
+        private final Document document;
+        private final Segment segment = new Segment();
+        private int windowStart;
+
+        DocumentText(Document document) {
+            this.document = document;
+            segment.setPartialReturn(true);
+        }
+
+        void invalidate() {
+            segment.count = 0;
+        }
+
+        @Override
+        public int length() {
+            return document.getLength();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < windowStart || index >= windowStart + segment.count) {
+                try {
+                    document.getText(index, Math.min(WINDOW, document.getLength() - index), segment);
+                } catch (BadLocationException e) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                windowStart = index;
+            }
+            return segment.array[segment.offset + index - windowStart];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            try {
+                return document.getText(start, end - start);
+            } catch (BadLocationException e) {
+                throw new IndexOutOfBoundsException(start);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * @author gsotelo
+ * Immutable map from int keys to lists of int values, stored as sorted primitive arrays. Used by the suggestion
+ * indexes to map hashed keys to word ids without boxing
+ */
+public class IntMultimap {
+    private final IntBuffer keys;
+    // values of keys[k] are stored from offsets[k] up to offsets[k + 1]
+    private final IntBuffer offsets;
+    private final IntBuffer values;
+
+    /**
+     * Constructor builds the map from key and value pairs; duplicate pairs are stored once
+     * @param pairs Each pair packed as key in the upper 32 bits and value in the lower 32 bits
+     * @param size The number of pairs used from the start of the array, which is sorted in place
+     */
+    public IntMultimap(long[] pairs, int size) {
+        Arrays.sort(pairs, 0, size);
+        int keyCount = 0;
+        int valueCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                valueCount++;
+                if (i == 0 || (pairs[i] >> 32) != (pairs[i - 1] >> 32)) {
+                    keyCount++;
+                }
+            }
+        }
+        int[] keyArray = new int[keyCount];
+        int[] offsetArray = new int[keyCount + 1];
+        int[] valueArray = new int[valueCount];
+        keyCount = 0;
+        valueCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && pairs[i] == pairs[i - 1]) {
+                continue;
+            }
+            int key = (int) (pairs[i] >> 32);
+            if (keyCount == 0 || keyArray[keyCount - 1] != key) {
+                keyArray[keyCount] = key;
+                offsetArray[keyCount] = valueCount;
+                keyCount++;
+            }
+            valueArray[valueCount++] = (int) pairs[i];
+        }
+        offsetArray[keyCount] = valueCount;
+        this.keys = IntBuffer.wrap(keyArray);
+        this.offsets = IntBuffer.wrap(offsetArray);
+        this.values = IntBuffer.wrap(valueArray);
+    }
+
+    private IntMultimap(IntBuffer keys, IntBuffer offsets, IntBuffer values) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * Finds the slot of a key
+     * @param key The key being looked up
+     * @return The slot of the key, or -1 if the key has no values
+     */
+    public int find(int key) {
+        int low = 0;
+        int high = keys.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = keys.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Accessor to retrieve the position of the first value of a slot
+     * @param slot A slot returned by find
+     * @return the position of the first value
+     */
+    public int start(int slot) {
+        return offsets.get(slot);
+    }
+
+    /**
+     * Accessor to retrieve the position after the last value of a slot
+     * @param slot A slot returned by find
+     * @return the position after the last value
+     */
+    public int end(int slot) {
+        return offsets.get(slot + 1);
+    }
+
+    /**
+     * Accessor to retrieve a value
+     * @param position A position between start(slot) and end(slot)
+     * @return the value at that position
+     */
+    public int value(int position) {
+        return values.get(position);
+    }
+
+    /**
+     * Accessor to retrieve the number of stored values
+     * @return the number of stored values
+     */
+    public int size() {
+        return values.limit();
+    }
+
+    /**
+     * Computes the number of bytes written by save
+     * @return the serialized size in bytes
+     */
+    public int sizeInBytes() {
+        return 8 + 4 * (keys.limit() + offsets.limit() + values.limit());
+    }
+
+    /**
+     * Writes the map at the position of a little endian buffer
+     * @param buffer The buffer to be written
+     */
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(keys.limit()).putInt(values.limit());
+        for (IntBuffer array : new IntBuffer[] {keys, offsets, values}) {
+            buffer.asIntBuffer().put(array.duplicate().rewind());
+            buffer.position(buffer.position() + 4 * array.limit());
+        }
+    }
+
+    /**
+     * Reads a map written by save from the position of a buffer, without copying its arrays
+     * @param buffer The buffer to be read, usually memory mapped
+     * @return The map backed by the buffer, or null if the buffer is too short for the lengths it declares or the
+     *         offsets do not span the values, e.g. because the file was truncated
+     */
+    public static IntMultimap load(ByteBuffer buffer) {
+        if (buffer.remaining() < 8) {
+            return null;
+        }
+        int keyCount = buffer.getInt();
+        int valueCount = buffer.getInt();
+        if (keyCount < 0 || valueCount < 0 || 4L * (2L * keyCount + 1 + valueCount) > buffer.remaining()) {
+            return null;
+        }
+        IntBuffer keys = slice(buffer, keyCount);
+        IntBuffer offsets = slice(buffer, keyCount + 1);
+        IntBuffer values = slice(buffer, valueCount);
+        if (offsets.get(0) != 0 || offsets.get(keyCount) != valueCount) {
+            return null;
+        }
+        return new IntMultimap(keys, offsets, values);
+    }
+
+    private static IntBuffer slice(ByteBuffer buffer, int length) {
+        IntBuffer ints = buffer.slice(buffer.position(), 4 * length).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        buffer.position(buffer.position() + 4 * length);
+        return ints;
+    }
+}
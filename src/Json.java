@@ -0,0 +1,60 @@
+import java.util.Collection;
+
+/**
+ * @author gsotelo
+ * Minimal helpers for writing JSON reports without a library
+ */
+public class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Quotes and escapes a string as a JSON string literal
+     * @param value The string
+     * @return The JSON literal, including the quotes
+     */
+    public static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Writes strings as a JSON array of string literals
+     * @param values The strings
+     * @return The JSON array
+     */
+    public static String array(Collection<String> values) {
+        StringBuilder array = new StringBuilder("[");
+        for (String value : values) {
+            array.append(array.length() == 1 ? "" : ", ").append(quote(value));
+        }
+        return array.append(']').toString();
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author gsotelo
+ * Finds the words of a word graph closest to a misspelled word by walking the graph with one row of the
+ * Damerau-Levenshtein table per letter, like a Levenshtein automaton run against the dictionary. Branches are
+ * abandoned as soon as every cell of their row exceeds the maximum distance, so most of the graph is never visited
+ */
+public class LevenshteinSearch {
+    private final String word;
+    private final int limit;
+    private final int maxDistance;
+    // the walk only looks for matches up to this distance, which shrinks once enough closer matches are found
+    private int walkDistance;
+    // byDistance.get(d) holds the matches at distance d in alphabetical order
+    private final List<List<String>> byDistance = new ArrayList<>();
+
+    private final int[][] rows;
+    private final char[] path;
+
+    /**
+     * Constructor prepares a search for the closest words to a misspelled word
+     * @param word The misspelled word, in lower case
+     * @param maxDistance The largest edit distance of the matches
+     * @param limit The maximum number of matches
+     */
+    public LevenshteinSearch(String word, int maxDistance, int limit) {
+        this.word = word;
+        this.maxDistance = maxDistance;
+        this.walkDistance = maxDistance;
+        this.limit = limit;
+        for (int d = 0; d <= maxDistance; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        // a row deeper than the word by more than maxDistance can only hold larger distances
+        int depth = word.length() + maxDistance + 1;
+        rows = new int[depth + 1][word.length() + 1];
+        path = new char[depth];
+        for (int j = 0; j <= word.length(); j++) {
+            rows[0][j] = j;
+        }
+    }
+
+    /**
+     * Searches a word graph for matches
+     * @param words The dictionary words
+     * @return This search, for chaining
+     */
+    public LevenshteinSearch search(WordGraph words) {
+        if (words.root() != WordGraph.NONE) {
+            walk(words, words.root(), 1);
+        }
+        return this;
+    }
+
+    /**
+     * Considers a word from another source, such as the user dictionary
+     * @param candidate The candidate word
+     */
+    public void offer(String candidate) {
+        int distance = EditDistance.distance(word, candidate, maxDistance);
+        if (distance > 0 && distance <= maxDistance) {
+            List<String> bucket = byDistance.get(distance);
+            int position = Collections.binarySearch(bucket, candidate);
+            if (position < 0) {
+                bucket.add(-position - 1, candidate);
+            }
+        }
+    }
+
+    /**
+     * Accessor to retrieve the matches, closest first and alphabetically within the same distance
+     * @return the matches, at most limit of them
+     */
+    public List<String> getResults() {
+        List<String> results = new ArrayList<>();
+        for (List<String> bucket : byDistance) {
+            for (String match : bucket) {
+                if (results.size() == limit) {
+                    return results;
+                }
+                results.add(match);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Visits the arcs of a state, computing the table row of each arc label
+     * @param words The dictionary words
+     * @param state The state whose arcs are visited
+     * @param depth The number of letters on the path after taking an arc of the state
+     */
+    private void walk(WordGraph words, int state, int depth) {
+        int[] previous = rows[depth - 1];
+        int[] current = rows[depth];
+        int m = word.length();
+        for (int arc = state; arc != WordGraph.NONE; arc = words.nextArc(arc)) {
+            // only cells within walkDistance of the diagonal can stay in range, the rest are capped just above it
+            int capped = walkDistance + 1;
+            int low = Math.max(1, depth - walkDistance);
+            int high = Math.min(m, depth + walkDistance);
+            char c = words.label(arc);
+            path[depth - 1] = c;
+            current[low - 1] = low == 1 ? Math.min(depth, capped) : capped;
+            int rowMin = current[low - 1];
+            for (int j = low; j <= high; j++) {
+                int cost = word.charAt(j - 1) == c ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (depth > 1 && j > 1 && c == word.charAt(j - 2) && path[depth - 2] == word.charAt(j - 1)) {
+                    value = Math.min(value, rows[depth - 2][j - 2] + 1);
+                }
+                current[j] = Math.min(value, capped);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (high < m) {
+                current[high + 1] = capped;
+            }
+            if (words.isFinal(arc) && high == m && current[m] > 0 && current[m] <= walkDistance) {
+                add(new String(path, 0, depth), current[m]);
+            }
+            if (rowMin <= walkDistance && words.target(arc) != WordGraph.NONE) {
+                walk(words, words.target(arc), depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Records a match found by the walk. Matches arrive in alphabetical order, so once limit matches are known
+     * within some distance, later words at that distance or beyond can never make the results
+     * @param match The matching word
+     * @param distance Its edit distance
+     */
+    private void add(String match, int distance) {
+        byDistance.get(distance).add(match);
+        int found = 0;
+        for (int d = 0; d <= walkDistance; d++) {
+            found += byDistance.get(d).size();
+            if (found >= limit) {
+                walkDistance = d - 1;
+                break;
+            }
+        }
+    }
+}
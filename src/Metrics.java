@@ -0,0 +1,261 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+/**
+ * @author gsotelo
+ * Counters and latency histograms for the stages of spellchecking. Enabled with -Djsc.metrics=true; the flag is a
+ * constant, so when it is off the JIT removes the instrumentation and it costs next to nothing. When enabled the
+ * metrics are registered with JMX, and -Djsc.metrics.dump=SECONDS prints them periodically to standard error, as
+ * JSON with -Djsc.metrics.format=json
+ */
+public final class Metrics implements MetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("jsc.metrics");
+
+    public static final Stage LOAD = new Stage("load");
+    public static final Stage TOKENIZE = new Stage("tokenize");
+    public static final Stage IS_VALID = new Stage("isValid");
+    public static final Stage SUGGEST = new Stage("getSuggestions");
+    public static final Stage USER_WAIT = new Stage("userWait");
+    // from the start of the JVM to the first paint of the window, recorded once
+    public static final Stage FIRST_PAINT = new Stage("firstPaint");
+    private static final Stage[] STAGES = {LOAD, TOKENIZE, IS_VALID, SUGGEST, USER_WAIT, FIRST_PAINT};
+
+    private static final LongAdder WORDS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static volatile long resetAt = System.nanoTime();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(),
+                        new ObjectName("jsc:type=Metrics"));
+            } catch (Exception e) {
+                System.err.println("Metrics could not be registered with JMX: " + e);
+            }
+            long seconds = Long.getLong("jsc.metrics.dump", 0);
+            if (seconds > 0) {
+                startDump(seconds, "json".equals(System.getProperty("jsc.metrics.format")), System.err);
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Reads the clock for a stage measurement, only when metrics are enabled
+     * @return The current time in nanoseconds, or 0 when metrics are disabled
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Reads the time the JVM started for a stage measurement, only when metrics are enabled
+     * @return The start of the JVM on the clock of start(), or 0 when metrics are disabled
+     */
+    public static long processStart() {
+        return ENABLED ? System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000 : 0;
+    }
+
+    /**
+     * Counts a word checked against the dictionary
+     * @param valid True if the word was found
+     */
+    public static void countWord(boolean valid) {
+        if (ENABLED) {
+            WORDS.increment();
+            if (!valid) {
+                MISSES.increment();
+            }
+        }
+    }
+
+    /**
+     * Prints the metrics periodically on a daemon thread
+     * @param seconds The period of the dump
+     * @param json True to print JSON, false to print text
+     * @param out Receives the dumps
+     */
+    public static void startDump(long seconds, boolean json, PrintStream out) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.println(json ? json() : report()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Formats every metric as text
+     * @return The words checked, miss ratio and one line per stage
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "words checked: %d, %.0f words/s, miss ratio %.4f%n", WORDS.sum(), wordsPerSecond(), missRatio()));
+        for (Stage stage : STAGES) {
+            report.append(String.format(Locale.ROOT, "%-15s count %10d  mean %10.0f ns  p50 <%10d ns  p99 <%10d ns%n",
+                    stage.name, stage.getCount(), stage.getMeanNanos(), stage.percentile(0.5),
+                    stage.percentile(0.99)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Formats every metric as JSON
+     * @return A JSON object with the word counts and an object per stage
+     */
+    public static String json() {
+        StringBuilder json = new StringBuilder(String.format(Locale.ROOT,
+                "{\"wordsChecked\": %d, \"wordsPerSecond\": %.1f, \"missRatio\": %.6f, \"stages\": {",
+                WORDS.sum(), wordsPerSecond(), missRatio()));
+        for (int i = 0; i < STAGES.length; i++) {
+            Stage stage = STAGES[i];
+            json.append(i == 0 ? "" : ", ").append(String.format(Locale.ROOT,
+                    "%s: {\"count\": %d, \"totalNanos\": %d, \"p50Nanos\": %d, \"p99Nanos\": %d}",
+                    Json.quote(stage.name), stage.getCount(), stage.getTotalNanos(), stage.percentile(0.5),
+                    stage.percentile(0.99)));
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Sets every counter and histogram back to zero
+     */
+    public static void resetAll() {
+        WORDS.reset();
+        MISSES.reset();
+        for (Stage stage : STAGES) {
+            stage.reset();
+        }
+        resetAt = System.nanoTime();
+    }
+
+    private static double wordsPerSecond() {
+        return WORDS.sum() / Math.max(1e-9, (System.nanoTime() - resetAt) / 1e9);
+    }
+
+    private static double missRatio() {
+        long words = WORDS.sum();
+        return words == 0 ? 0 : (double) MISSES.sum() / words;
+    }
+
+    @Override
+    public long getWordsChecked() {
+        return WORDS.sum();
+    }
+
+    @Override
+    public double getWordsPerSecond() {
+        return wordsPerSecond();
+    }
+
+    @Override
+    public double getMissRatio() {
+        return missRatio();
+    }
+
+    @Override
+    public String getReport() {
+        return report();
+    }
+
+    @Override
+    public String getJson() {
+        return json();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+
+    /**
+     * Count, total time and power-of-two latency histogram of one stage
+     */
+    public static final class Stage {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        // buckets[i] counts the latencies from 2^i up to 2^(i + 1) nanoseconds
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records one operation of the stage, when metrics are enabled
+         * @param start The time returned by Metrics.start when the operation began
+         */
+        public void record(long start) {
+            if (ENABLED) {
+                long elapsed = Math.max(1, System.nanoTime() - start);
+                count.increment();
+                nanos.add(elapsed);
+                buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(elapsed));
+            }
+        }
+
+        /**
+         * Accessor to retrieve the number of recorded operations
+         * @return the number of operations
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Accessor to retrieve the time spent in the stage
+         * @return the total nanoseconds
+         */
+        public long getTotalNanos() {
+            return nanos.sum();
+        }
+
+        /**
+         * Accessor to retrieve the mean latency of the stage
+         * @return the mean nanoseconds per operation, or 0 if none was recorded
+         */
+        public double getMeanNanos() {
+            long operations = count.sum();
+            return operations == 0 ? 0 : (double) nanos.sum() / operations;
+        }
+
+        /**
+         * Estimates a latency percentile from the histogram
+         * @param fraction The percentile as a fraction, e.g. 0.99
+         * @return The upper bound of the histogram bucket holding the percentile, or 0 if nothing was recorded
+         */
+        public long percentile(double fraction) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                total += buckets.get(i);
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length() && total > 0; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return i >= 62 ? Long.MAX_VALUE : 1L << (i + 1);
+                }
+            }
+            return 0;
+        }
+
+        private void reset() {
+            count.reset();
+            nanos.reset();
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * @author gsotelo
+ * JMX view of the spellchecker's metrics, registered as jsc:type=Metrics
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Accessor to retrieve the number of words checked against the dictionary
+     * @return the number of words checked
+     */
+    long getWordsChecked();
+
+    /**
+     * Accessor to retrieve the average checking rate since the metrics were last reset
+     * @return the words checked per second
+     */
+    double getWordsPerSecond();
+
+    /**
+     * Accessor to retrieve the share of checked words missing from the dictionary
+     * @return the miss ratio, between 0 and 1
+     */
+    double getMissRatio();
+
+    /**
+     * Accessor to retrieve the counts and latency percentiles of every stage
+     * @return the metrics as text, one stage per line
+     */
+    String getReport();
+
+    /**
+     * Accessor to retrieve every metric as JSON
+     * @return the metrics as a JSON object
+     */
+    String getJson();
+
+    /**
+     * Sets every counter and histogram back to zero
+     */
+    void reset();
+}
@@ -0,0 +1,92 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author gsotelo
+ * Spellchecks one large text on several cores. The text is split at sentence boundaries, where the engine's scan
+ * state starts afresh, so each chunk can be checked on its own; findings are merged back in the order of the text
+ */
+public class ParallelChecker {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 15;
+
+    private final Spellchecker spellchecker;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Constructor creates a parallel checker with the default chunk size
+     * @param spellchecker The engine shared by all threads
+     * @param pool The pool the chunks are checked on
+     */
+    public ParallelChecker(Spellchecker spellchecker, ForkJoinPool pool) {
+        this(spellchecker, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor creates a parallel checker
+     * @param spellchecker The engine shared by all threads
+     * @param pool The pool the chunks are checked on
+     * @param chunkSize The number of characters after which a chunk ends at the next sentence boundary
+     */
+    public ParallelChecker(Spellchecker spellchecker, ForkJoinPool pool, int chunkSize) {
+        this.spellchecker = spellchecker;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Checks a text
+     * @param text The text to be spellchecked, which must not change during the check
+     * @return The findings in the order of the text, the same as Spellchecker.check returns
+     */
+    public List<Finding> check(CharSequence text) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int position = 0;
+        while (position < text.length()) {
+            position = position + chunkSize >= text.length() ? text.length()
+                    : Tokenizer.sentenceEnd(text, position + chunkSize);
+            bounds.add(position);
+        }
+        return pool.invoke(new ChunkTask(text, bounds, 0, bounds.size() - 1));
+    }
+
+    /**
+     * Checks a range of chunks, splitting it in halves until a single chunk is left
+     */
+    private class ChunkTask extends RecursiveTask<List<Finding>> {
+        private static final long serialVersionUID = 1L;
+        private final CharSequence text;
+        private final List<Integer> bounds;
+        private final int from;
+        private final int to;
+
+        ChunkTask(CharSequence text, List<Integer> bounds, int from, int to) {
+            this.text = text;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Finding> compute() {
+            if (to - from <= 1) {
+                List<Finding> findings = new ArrayList<>();
+                if (to > from) {
+                    spellchecker.check(text, bounds.get(from), bounds.get(to), 0, new Spellchecker.ScanState(),
+                            findings::add);
+                }
+                return findings;
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask first = new ChunkTask(text, bounds, from, middle);
+            first.fork();
+            List<Finding> second = new ChunkTask(text, bounds, middle, to).compute();
+            List<Finding> findings = first.join();
+            findings.addAll(second);
+            return findings;
+        }
+    }
+}
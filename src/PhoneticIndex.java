@@ -0,0 +1,338 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author gsotelo
+ * Index of the dictionary words by how they sound, for misspellings too far from the intended word for edit based
+ * suggestions, e.g. "fonetik" for "phonetic". Every word is encoded with a Metaphone style code of at most six
+ * sounds, packed into an int, and the word ids are stored under their code in an IntMultimap. The words sounding
+ * like a misspelled word are those under its own code, ordered by edit distance
+ */
+public class PhoneticIndex {
+    static final int MAGIC = 0x4A534350; // "JSCP"
+    static final int FORMAT_VERSION = 1;
+    static final int MAX_CODE_LENGTH = 6;
+    private static final int HEADER_BYTES = 16;
+    // the sounds a code is made of; "0" is the th sound
+    private static final String SOUNDS = "0ABFHJKLMNPRSTWXY";
+
+    private final WordGraph words;
+    private final IntMultimap index;
+
+    /**
+     * Constructor builds the index over every word of a word graph
+     * @param words The dictionary words
+     */
+    public PhoneticIndex(WordGraph words) {
+        this.words = words;
+        long[] pairs = new long[Math.max(1, words.size())];
+        StringBuilder letters = new StringBuilder();
+        StringBuilder code = new StringBuilder();
+        int size = 0;
+        int id = 0;
+        for (String word : words) {
+            encode(word, letters, code);
+            pairs[size++] = ((long) pack(code) << 32) | id++;
+        }
+        this.index = new IntMultimap(pairs, size);
+    }
+
+    private PhoneticIndex(WordGraph words, IntMultimap index) {
+        this.words = words;
+        this.index = index;
+    }
+
+    /**
+     * Finds the dictionary words that sound like a word, the word itself excluded
+     * @param word The misspelled word, in lower case
+     * @param limit The maximum number of words
+     * @return At most limit words with the same code, closest by edit distance first and alphabetically within
+     *         the same distance
+     */
+    public List<String> lookup(String word, int limit) {
+        String code = encode(word);
+        int slot = code.isEmpty() ? -1 : index.find(pack(code));
+        if (slot < 0) {
+            return new ArrayList<>();
+        }
+        int count = index.end(slot) - index.start(slot);
+        // distance in the upper bits and word id in the lower, so sorting orders by distance, then alphabetically
+        long[] ranked = new long[count];
+        StringBuilder candidate = new StringBuilder();
+        count = 0;
+        for (int i = index.start(slot); i < index.end(slot); i++) {
+            int id = index.value(i);
+            words.wordAt(id, candidate);
+            int distance = EditDistance.distance(word, candidate, Math.max(word.length(), candidate.length()));
+            if (distance > 0) {
+                ranked[count++] = ((long) distance << 32) | id;
+            }
+        }
+        Arrays.sort(ranked, 0, count);
+        List<String> suggestions = new ArrayList<>(Math.min(limit, count));
+        for (int i = 0; i < count && suggestions.size() < limit; i++) {
+            suggestions.add(words.wordAt((int) ranked[i]));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Saves the index so later runs can load it instead of rebuilding it
+     * @param path The index file to be written
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + index.sizeInBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(words.size()).putInt(words.arcCount());
+        index.save(buffer);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Memory maps an index written by save
+     * @param path The index file
+     * @param words The word graph the index must have been built over
+     * @return The index, or null if the file is missing, truncated or was built for other words
+     * @throws IOException If the file exists but cannot be read
+     */
+    public static PhoneticIndex load(Path path, WordGraph words) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != words.size()
+                || buffer.getInt() != words.arcCount()) {
+            return null;
+        }
+        IntMultimap index = IntMultimap.load(buffer);
+        // the map must fill the rest of the file exactly
+        return index == null || buffer.hasRemaining() ? null : new PhoneticIndex(words, index);
+    }
+
+    /**
+     * Tests whether two words sound alike
+     * @param a The first word
+     * @param b The second word
+     * @return True if the words have the same code
+     */
+    public static boolean soundsLike(String a, String b) {
+        String code = encode(a);
+        return !code.isEmpty() && code.equals(encode(b));
+    }
+
+    /**
+     * Encodes how a word sounds with the rules of the original Metaphone, plus two from Double Metaphone: every
+     * leading vowel is coded A, and a D before a soft G is coded J once, e.g. "knowledge" and "nolij" are both NLJ.
+     * Letters other than a to z are skipped and repeated sounds are coded once
+     * @param word The word to be encoded
+     * @return The code, at most MAX_CODE_LENGTH sounds
+     */
+    static String encode(CharSequence word) {
+        StringBuilder code = new StringBuilder(MAX_CODE_LENGTH);
+        encode(word, new StringBuilder(word.length()), code);
+        return code.toString();
+    }
+
+    /**
+     * Encodes a word into reusable buffers
+     * @param letters Receives the letters of the word
+     * @param code Receives the code
+     */
+    private static void encode(CharSequence word, StringBuilder letters, StringBuilder code) {
+        letters.setLength(0);
+        code.setLength(0);
+        for (int i = 0; i < word.length(); i++) {
+            char c = Character.toLowerCase(word.charAt(i));
+            // doubled letters sound once, except cc as in accent
+            if (c >= 'a' && c <= 'z' && (letters.length() == 0 || c != letters.charAt(letters.length() - 1)
+                    || c == 'c')) {
+                letters.append(c);
+            }
+        }
+        StringBuilder w = letters;
+        int n = w.length();
+        int first = n > 1 && (startsWith(w, "kn", 0) || startsWith(w, "gn", 0) || startsWith(w, "pn", 0)
+                || startsWith(w, "ae", 0) || startsWith(w, "wr", 0)) ? 1 : 0;
+        for (int i = first; i < n && code.length() < MAX_CODE_LENGTH; i++) {
+            char c = w.charAt(i);
+            char previous = i > 0 ? w.charAt(i - 1) : 0;
+            char next = at(w, i + 1);
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'o': case 'u':
+                    if (i == first) {
+                        add(code, 'A');
+                    }
+                    break;
+                case 'b':
+                    // silent in a final mb, as in dumb
+                    if (!(i == n - 1 && previous == 'm')) {
+                        add(code, 'B');
+                    }
+                    break;
+                case 'c':
+                    if (next == 'i' && at(w, i + 2) == 'a') {
+                        add(code, 'X');
+                    } else if (next == 'h') {
+                        add(code, previous == 's' ? 'K' : 'X');
+                        i++;
+                    } else if (next == 'i' || next == 'e' || next == 'y') {
+                        add(code, 'S');
+                    } else {
+                        add(code, 'K');
+                        if (next == 'k' || next == 'q') {
+                            i++;
+                        }
+                    }
+                    break;
+                case 'd':
+                    if (next == 'g' && isSoft(at(w, i + 2))) {
+                        add(code, 'J');
+                        i++;
+                    } else {
+                        add(code, 'T');
+                    }
+                    break;
+                case 'g':
+                    if (next == 'h' && i + 2 < n && !isVowel(at(w, i + 2))) {
+                        // silent, as in night
+                        i++;
+                    } else if (next == 'n' && (i + 2 == n || (i + 4 == n && startsWith(w, "ed", i + 2)))) {
+                        // silent, as in sign and signed
+                    } else if (isSoft(next)) {
+                        add(code, 'J');
+                    } else {
+                        add(code, 'K');
+                    }
+                    break;
+                case 'h':
+                    if (isVowel(next) && "cgpst".indexOf(previous) < 0) {
+                        add(code, 'H');
+                    }
+                    break;
+                case 'k':
+                    add(code, 'K');
+                    break;
+                case 'p':
+                    if (next == 'h') {
+                        add(code, 'F');
+                        i++;
+                    } else {
+                        add(code, 'P');
+                    }
+                    break;
+                case 'q':
+                    add(code, 'K');
+                    break;
+                case 's':
+                    if (next == 'h') {
+                        add(code, 'X');
+                        i++;
+                    } else if (next == 'i' && (at(w, i + 2) == 'o' || at(w, i + 2) == 'a')) {
+                        add(code, 'X');
+                    } else {
+                        add(code, 'S');
+                    }
+                    break;
+                case 't':
+                    if (next == 'i' && (at(w, i + 2) == 'o' || at(w, i + 2) == 'a')) {
+                        add(code, 'X');
+                    } else if (next == 'h') {
+                        add(code, '0');
+                        i++;
+                    } else if (!(next == 'c' && at(w, i + 2) == 'h')) {
+                        add(code, 'T');
+                    }
+                    break;
+                case 'v':
+                    add(code, 'F');
+                    break;
+                case 'w':
+                    if (isVowel(next)) {
+                        add(code, 'W');
+                    } else if (i == first && next == 'h') {
+                        add(code, 'W');
+                        i++;
+                    }
+                    break;
+                case 'x':
+                    if (i == first) {
+                        add(code, 'S');
+                    } else {
+                        add(code, 'K');
+                        add(code, 'S');
+                    }
+                    break;
+                case 'y':
+                    if (isVowel(next)) {
+                        add(code, 'Y');
+                    }
+                    break;
+                case 'z':
+                    add(code, 'S');
+                    break;
+                default:
+                    // f, j, l, m, n and r sound as written
+                    add(code, Character.toUpperCase(c));
+            }
+        }
+        code.setLength(Math.min(code.length(), MAX_CODE_LENGTH));
+    }
+
+    /**
+     * Packs a code into an int, five bits per sound
+     */
+    private static int pack(CharSequence code) {
+        int packed = 0;
+        for (int i = 0; i < code.length(); i++) {
+            packed = (packed << 5) | (SOUNDS.indexOf(code.charAt(i)) + 1);
+        }
+        return packed;
+    }
+
+    private static void add(StringBuilder code, char sound) {
+        if (code.length() == 0 || code.charAt(code.length() - 1) != sound) {
+            code.append(sound);
+        }
+    }
+
+    private static char at(CharSequence word, int index) {
+        return index < word.length() ? word.charAt(index) : 0;
+    }
+
+    private static boolean startsWith(CharSequence word, String prefix, int from) {
+        if (from + prefix.length() > word.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (word.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    private static boolean isSoft(char c) {
+        return c == 'e' || c == 'i' || c == 'y';
+    }
+}
@@ -0,0 +1,269 @@
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * @author gsotelo
+ * Non-modal window listing the findings of a text while it is still being scanned. A background worker streams
+ * findings into the list as they are found, and the user resolves them in any order, one at a time or all
+ * occurrences of a word at once
+ */
+public class ReviewPanel extends JDialog {
+    private static final long serialVersionUID = 1L;
+    private static final String DELETE = "Delete redundant word";
+    private static final String NONE = "None Available";
+
+    private final ReviewSession session;
+    private final Dictionary dictionary;
+    private final CorrectionMemory memory;
+    private final Consumer<String> onFinish;
+    private final DefaultListModel<Finding> findings = new DefaultListModel<>();
+    private final JList<Finding> findingList = new JList<>(findings);
+    private final JTextField context = new JTextField();
+    private final JComboBox<String> replacementOptions = new JComboBox<>();
+    private final JLabel status = new JLabel("Scanning...");
+    private final SwingWorker<Void, Finding> scanner;
+    private final long opened = Metrics.start();
+    private boolean finished;
+
+    /**
+     * Constructor opens the review of a text and starts scanning it in the background
+     * @param parent Provides a frame for the window, or null
+     * @param text The text to be reviewed
+     * @param dictionary The dictionary the text is checked against and words are added to
+     * @param memory The user's past decisions, applied without asking and saved when the user finishes; or null
+     * @param onFinish Receives the corrected text on the event dispatch thread when the user finishes
+     */
+    public ReviewPanel(Frame parent, String text, Dictionary dictionary, CorrectionMemory memory,
+                       Consumer<String> onFinish) {
+        super(parent, "Review Findings", false);
+        this.session = new ReviewSession(text, memory);
+        this.dictionary = dictionary;
+        this.memory = memory;
+        this.onFinish = onFinish;
+        initComponents();
+        scanner = new SwingWorker<Void, Finding>() {
+            @Override
+            protected Void doInBackground() {
+                new Spellchecker(dictionary, memory).check(text, finding -> {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    publish(finding);
+                });
+                return null;
+            }
+
+            @Override
+            protected void process(List<Finding> chunk) {
+                for (Finding finding : chunk) {
+                    if (session.offer(finding)) {
+                        findings.addElement(finding);
+                    }
+                }
+                if (findingList.isSelectionEmpty() && !findings.isEmpty()) {
+                    findingList.setSelectedIndex(0);
+                }
+                updateStatus();
+            }
+
+            @Override
+            protected void done() {
+                updateStatus();
+            }
+        };
+        scanner.execute();
+    }
+
+    /**
+     * Lays out the finding list, the context of the selected finding, its suggestions and the actions
+     */
+    private void initComponents() {
+        findingList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        findingList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Finding finding = (Finding) value;
+                return super.getListCellRendererComponent(list, finding.getType().getTitle() + ": "
+                        + finding.getOriginalWord(), index, isSelected, cellHasFocus);
+            }
+        });
+        findingList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showSelected();
+            }
+        });
+        context.setEditable(false);
+
+        JButton replace = new JButton("Replace");
+        replace.addActionListener(e -> replaceAction(false));
+        JButton replaceAll = new JButton("Replace All");
+        replaceAll.addActionListener(e -> replaceAction(true));
+        JButton ignore = new JButton("Ignore");
+        ignore.addActionListener(e -> ignoreAction(false));
+        JButton ignoreAll = new JButton("Ignore All");
+        ignoreAll.addActionListener(e -> ignoreAction(true));
+        JButton addToDictionary = new JButton("Add to Dictionary");
+        addToDictionary.addActionListener(e -> addToDictionaryAction());
+        JButton finish = new JButton("Finish");
+        finish.addActionListener(e -> finishAction());
+
+        JPanel buttonPanel = new JPanel(new GridLayout(6, 1));
+        buttonPanel.add(replace);
+        buttonPanel.add(replaceAll);
+        buttonPanel.add(ignore);
+        buttonPanel.add(ignoreAll);
+        buttonPanel.add(addToDictionary);
+        buttonPanel.add(finish);
+
+        JPanel optionsPanel = new JPanel(new BorderLayout());
+        optionsPanel.add(new JLabel("Suggestion:"), BorderLayout.WEST);
+        optionsPanel.add(replacementOptions, BorderLayout.CENTER);
+
+        JPanel selectedPanel = new JPanel(new BorderLayout());
+        selectedPanel.add(context, BorderLayout.NORTH);
+        selectedPanel.add(optionsPanel, BorderLayout.SOUTH);
+
+        JPanel contentPanel = new JPanel(new BorderLayout());
+        contentPanel.add(status, BorderLayout.NORTH);
+        contentPanel.add(new JScrollPane(findingList), BorderLayout.CENTER);
+        contentPanel.add(buttonPanel, BorderLayout.EAST);
+        contentPanel.add(selectedPanel, BorderLayout.SOUTH);
+
+        setContentPane(contentPanel);
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                finishAction();
+            }
+        });
+        setSize(640, 420);
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Shows the sentence of the selected finding with its word highlighted, and its suggestions
+     */
+    private void showSelected() {
+        Finding finding = findingList.getSelectedValue();
+        replacementOptions.removeAllItems();
+        context.getHighlighter().removeAllHighlights();
+        if (finding == null) {
+            context.setText("");
+            return;
+        }
+        String text = session.getText();
+        int start = (int) finding.getStart();
+        int end = (int) finding.getEnd();
+        int sentenceStart = Tokenizer.sentenceStart(text, start);
+        context.setText(text.substring(sentenceStart, Tokenizer.sentenceEnd(text, start)).trim());
+        try {
+            context.getHighlighter().addHighlight(start - sentenceStart, end - sentenceStart,
+                    new DefaultHighlighter.DefaultHighlightPainter(Color.YELLOW));
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+
+        if (finding.getType() == Finding.Type.DOUBLE_WORD) {
+            replacementOptions.addItem(DELETE);
+        } else if (finding.getSuggestedWords().isEmpty()) {
+            replacementOptions.addItem(NONE);
+        } else {
+            finding.getSuggestedWords().forEach(replacementOptions::addItem);
+        }
+    }
+
+    /**
+     * Replaces the selected finding, or every finding of its word, with the selected suggestion
+     * @param all True to replace every occurrence, including those found later
+     */
+    private void replaceAction(boolean all) {
+        Finding finding = findingList.getSelectedValue();
+        Object selected = replacementOptions.getSelectedItem();
+        if (finding == null || selected == null || selected.equals(NONE)) {
+            return;
+        }
+        String replacement = finding.getType() == Finding.Type.DOUBLE_WORD ? "" : selected.toString();
+        if (all) {
+            session.replaceAll(finding, replacement).forEach(findings::removeElement);
+        } else {
+            session.replace(finding, replacement);
+            findings.removeElement(finding);
+        }
+        selectNext();
+    }
+
+    /**
+     * Leaves the selected finding, or every finding of its word, as written
+     * @param all True to ignore every occurrence, including those found later
+     */
+    private void ignoreAction(boolean all) {
+        Finding finding = findingList.getSelectedValue();
+        if (finding == null) {
+            return;
+        }
+        if (all) {
+            session.ignoreAll(finding).forEach(findings::removeElement);
+        } else {
+            session.ignore(finding);
+            findings.removeElement(finding);
+        }
+        selectNext();
+    }
+
+    /**
+     * Adds the word of the selected misspelling to the user dictionary and ignores all of its occurrences
+     */
+    private void addToDictionaryAction() {
+        Finding finding = findingList.getSelectedValue();
+        if (finding == null || finding.getType() != Finding.Type.MISSPELLING) {
+            return;
+        }
+        dictionary.addUserDictionary(finding.getOriginalWord());
+        session.ignoreAll(finding).forEach(findings::removeElement);
+        selectNext();
+    }
+
+    /**
+     * Stops the scan if it is still running, closes the window and hands over the corrected text
+     */
+    private void finishAction() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        scanner.cancel(false);
+        Metrics.USER_WAIT.record(opened);
+        if (memory != null) {
+            try {
+                memory.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        dispose();
+        onFinish.accept(session.getCorrectedText());
+    }
+
+    private void selectNext() {
+        if (!findings.isEmpty() && findingList.isSelectionEmpty()) {
+            findingList.setSelectedIndex(0);
+        }
+        updateStatus();
+    }
+
+    private void updateStatus() {
+        status.setText((scanner == null || !scanner.isDone() ? "Scanning... " : "Scan complete. ")
+                + session.getReceived() + " found, " + session.getRemembered() + " corrected from memory, "
+                + findings.size() + " left to review");
+    }
+}
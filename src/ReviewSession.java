@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author gsotelo
+ * The state of reviewing the findings of one text: the findings waiting for the user, the standing "ignore all"
+ * and "replace all" decisions, which also apply to findings that arrive later, and the accepted edits. Decisions
+ * about misspellings are recorded in a correction memory, and findings it resolved are applied without asking
+ */
+public class ReviewSession {
+    private final String text;
+    private final CorrectionMemory memory;
+    private final EditBuffer edits;
+    private final List<Finding> pending = new ArrayList<>();
+    // decisions by finding type and word; a null replacement ignores the word
+    private final Map<String, String> standing = new HashMap<>();
+    private int received;
+    private int remembered;
+
+    /**
+     * Constructor starts reviewing a text with no findings yet
+     * @param text The text being reviewed
+     */
+    public ReviewSession(String text) {
+        this(text, null);
+    }
+
+    /**
+     * Constructor starts reviewing a text with no findings yet, recording the user's decisions
+     * @param text The text being reviewed
+     * @param memory Records the decisions about misspellings, or null
+     */
+    public ReviewSession(String text, CorrectionMemory memory) {
+        this.text = text;
+        this.memory = memory;
+        this.edits = new EditBuffer(text);
+    }
+
+    /**
+     * Adds a finding from the scan, applying any standing decision about its word
+     * @param finding The finding, in text order after the ones already offered
+     * @return True if the finding waits for the user, false if a standing decision resolved it
+     */
+    public boolean offer(Finding finding) {
+        received++;
+        if (finding.isRemembered()) {
+            remembered++;
+            apply(finding, finding.getSuggestedWords().get(0));
+            return false;
+        }
+        String key = key(finding);
+        if (standing.containsKey(key)) {
+            String replacement = standing.get(key);
+            if (replacement != null) {
+                apply(finding, replacement);
+            }
+            return false;
+        }
+        pending.add(finding);
+        return true;
+    }
+
+    /**
+     * Replaces the text of one finding
+     * @param finding A pending finding
+     * @param replacement The replacement, empty to delete a double word
+     */
+    public void replace(Finding finding, String replacement) {
+        if (pending.remove(finding)) {
+            apply(finding, replacement);
+            remember(finding, replacement);
+        }
+    }
+
+    /**
+     * Replaces every pending and future finding of the same type and word
+     * @param finding A pending finding
+     * @param replacement The replacement, empty to delete double words
+     * @return The findings resolved now
+     */
+    public List<Finding> replaceAll(Finding finding, String replacement) {
+        standing.put(key(finding), replacement);
+        remember(finding, replacement);
+        List<Finding> resolved = resolve(key(finding));
+        for (Finding same : resolved) {
+            apply(same, replacement);
+        }
+        return resolved;
+    }
+
+    /**
+     * Leaves one finding as written
+     * @param finding A pending finding
+     */
+    public void ignore(Finding finding) {
+        if (pending.remove(finding)) {
+            remember(finding, null);
+        }
+    }
+
+    /**
+     * Leaves every pending and future finding of the same type and word as written
+     * @param finding A pending finding
+     * @return The findings resolved now
+     */
+    public List<Finding> ignoreAll(Finding finding) {
+        standing.put(key(finding), null);
+        remember(finding, null);
+        return resolve(key(finding));
+    }
+
+    /**
+     * Accessor to retrieve the findings waiting for the user
+     * @return the pending findings in text order
+     */
+    public List<Finding> getPending() {
+        return Collections.unmodifiableList(pending);
+    }
+
+    /**
+     * Accessor to retrieve the number of findings offered so far
+     * @return the number of findings received from the scan
+     */
+    public int getReceived() {
+        return received;
+    }
+
+    /**
+     * Accessor to retrieve the number of findings applied from the correction memory
+     * @return the number of remembered findings
+     */
+    public int getRemembered() {
+        return remembered;
+    }
+
+    /**
+     * Accessor to retrieve the text being reviewed
+     * @return the original text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Applies the accepted replacements to the text
+     * @return the corrected text
+     */
+    public String getCorrectedText() {
+        return edits.toString();
+    }
+
+    private List<Finding> resolve(String key) {
+        List<Finding> resolved = new ArrayList<>();
+        for (Iterator<Finding> it = pending.iterator(); it.hasNext(); ) {
+            Finding finding = it.next();
+            if (key(finding).equals(key)) {
+                it.remove();
+                resolved.add(finding);
+            }
+        }
+        return resolved;
+    }
+
+    private void apply(Finding finding, String replacement) {
+        int start = (int) finding.getStart();
+        int length = (int) (finding.getEnd() - finding.getStart());
+        // e.g. a misspelled word already deleted as a double word
+        if (!edits.overlaps(start, length)) {
+            edits.replace(start, length, replacement);
+        }
+    }
+
+    /**
+     * Records a decision about a misspelling in the correction memory
+     * @param replacement The replacement, or null if the word was ignored
+     */
+    private void remember(Finding finding, String replacement) {
+        if (memory == null || finding.getType() != Finding.Type.MISSPELLING) {
+            return;
+        }
+        if (replacement == null) {
+            memory.recordIgnore(finding.getOriginalWord());
+        } else {
+            memory.recordReplacement(finding.getOriginalWord(), replacement);
+        }
+    }
+
+    private static String key(Finding finding) {
+        return finding.getType() + ":" + finding.getOriginalWord();
+    }
+}
@@ -0,0 +1,118 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @author gsotelo
+ * Load-test client for SpellcheckerServer: concurrent clients send word or text requests back to back and the
+ * throughput and p50 and p99 latencies are reported
+ */
+public class ServerLoadTest {
+    private static final String[] WORDS = {"the", "quick", "brwn", "fox", "jumps", "ovr", "lazy", "dog", "teh",
+            "spelling", "cheker", "works", "well", "recieve", "letter", "house"};
+
+    /**
+     * Runs the load test
+     * @param args [--url URL] [--clients N] [--requests N] [--words N] [--path /words|/check]
+     */
+    public static void main(String[] args) throws Exception {
+        String url = "http://127.0.0.1:" + SpellcheckerServer.DEFAULT_PORT;
+        String path = "/words";
+        int clients = 32;
+        int requests = 200;
+        int words = 4;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[i + 1];
+                    break;
+                case "--path":
+                    path = args[i + 1];
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--requests":
+                    requests = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--words":
+                    words = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        URI uri = URI.create(url + path);
+        int perClient = requests;
+        int wordCount = words;
+        ExecutorService executor = BatchChecker.newExecutor(clients);
+        List<Future<long[]>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int client = 0; client < clients; client++) {
+            long seed = client;
+            futures.add(executor.submit(() -> run(http, uri, perClient, wordCount, seed)));
+        }
+        long[] latencies = new long[clients * requests];
+        int failures = 0;
+        int count = 0;
+        for (Future<long[]> future : futures) {
+            for (long latency : future.get()) {
+                if (latency < 0) {
+                    failures++;
+                } else {
+                    latencies[count++] = latency;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        Arrays.sort(latencies, 0, count);
+        System.out.printf("%d requests of %d words to %s, %d clients, %d failed%n", clients * requests, words, uri,
+                clients, failures);
+        System.out.printf("%.0f requests/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", count / seconds,
+                percentile(latencies, count, 0.5) / 1e6, percentile(latencies, count, 0.99) / 1e6,
+                count == 0 ? 0 : latencies[count - 1] / 1e6);
+    }
+
+    /**
+     * Sends one client's requests one after the other
+     * @return The latency of each request in nanoseconds, negative for failed requests
+     */
+    private static long[] run(HttpClient http, URI uri, int requests, int words, long seed) {
+        Random random = new Random(seed);
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            StringBuilder body = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                body.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                latencies[i] = response.statusCode() == 200 ? System.nanoTime() - start : -1;
+            } catch (Exception e) {
+                latencies[i] = -1;
+            }
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, int count, double fraction) {
+        return count == 0 ? 0 : sorted[Math.min(count - 1, (int) Math.ceil(fraction * count) - 1)];
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author gsotelo
+ * Headless spellchecking engine. Detects misspelled words, double word repetitions, lower case sentence starts and
+ * mixed capitalization, and reports each as a Finding without asking the user anything
+ */
+public class Spellchecker {
+    private final Dictionary dictionary;
+    private final CorrectionMemory memory;
+
+    /**
+     * Constructor creates an engine checking against a dictionary
+     * @param dictionary The loaded dictionary
+     */
+    public Spellchecker(Dictionary dictionary) {
+        this(dictionary, null);
+    }
+
+    /**
+     * Constructor creates an engine that resolves misspellings the user decided about before from a correction
+     * memory: remembered replacements are reported as remembered findings and ignored words are not reported
+     * @param dictionary The loaded dictionary
+     * @param memory The user's past decisions, or null
+     */
+    public Spellchecker(Dictionary dictionary, CorrectionMemory memory) {
+        this.dictionary = dictionary;
+        this.memory = memory;
+    }
+
+    /**
+     * Checks a text
+     * @param text The text to be spellchecked
+     * @return The findings in the order of the text
+     */
+    public List<Finding> check(CharSequence text) {
+        List<Finding> findings = new ArrayList<>();
+        check(text, findings::add);
+        return findings;
+    }
+
+    /**
+     * Checks a text, passing each finding on as soon as it is found
+     * @param text The text to be spellchecked
+     * @param findings Receives the findings in the order of the text
+     */
+    public void check(CharSequence text, Consumer<Finding> findings) {
+        check(text, 0, text.length(), 0, new ScanState(), findings);
+    }
+
+    /**
+     * Checks one region of a longer text, continuing from the state the previous region left. Regions must end
+     * at a word boundary
+     * @param text The text holding the region
+     * @param from The offset the region starts at
+     * @param to The offset the region ends at, exclusive
+     * @param offset The position of text's first character within the whole text, added to every finding
+     * @param state The scan state left by the previous region, updated for the next one
+     * @param findings Receives the findings in the order of the text, at offsets within the whole text
+     */
+    public void check(CharSequence text, int from, int to, long offset, ScanState state,
+                      Consumer<Finding> findings) {
+        Tokenizer tokens = new Tokenizer(text, from, to, state.sentenceStart);
+        for (long began = Metrics.start(); tokens.next(); began = Metrics.start()) {
+            Metrics.TOKENIZE.record(began);
+            int start = tokens.start();
+            int end = tokens.end();
+            if (tokens.isSentenceStart()) {
+                state.previousWord.setLength(0);
+            }
+
+            // Check for double word repetitions
+            if (state.previousWord.length() > 0 && sameWord(state.previousWord, text, start, end)) {
+                findings.accept(new Finding(Finding.Type.DOUBLE_WORD, text.subSequence(start, end).toString(),
+                        state.previousEnd, offset + end, Collections.singletonList("")));
+            }
+            state.previousWord.setLength(0);
+            state.previousWord.append(text, start, end);
+            state.previousEnd = offset + end;
+
+            // Check for mis-capitalized words at the beginning of each sentence
+            if (tokens.isSentenceStart() && Character.isLowerCase(text.charAt(start))) {
+                String word = text.subSequence(start, end).toString();
+                findings.accept(new Finding(Finding.Type.SENTENCE_CAPITALIZATION, word, offset + start,
+                        offset + end, Collections.singletonList(Character.toUpperCase(word.charAt(0))
+                        + word.substring(1))));
+            }
+
+            // Check dictionary to see if word is valid
+            if (!tokens.hasDigit()) {
+                boolean valid = dictionary.isValid(text, start, end);
+                Metrics.countWord(valid);
+                if (!valid) {
+                    String word = text.subSequence(start, end).toString();
+                    // a remembered decision is found before any suggestions are computed
+                    String decision = memory == null ? null : memory.lookup(word);
+                    if (decision == null) {
+                        findings.accept(new Finding(Finding.Type.MISSPELLING, word, offset + start, offset + end,
+                                dictionary.getSuggestions(word)));
+                    } else if (!decision.equals(CorrectionMemory.IGNORE)) {
+                        findings.accept(new Finding(Finding.Type.MISSPELLING, word, offset + start, offset + end,
+                                decision));
+                    }
+                }
+            }
+
+            // Check for mixed capitalization within each word
+            if (hasUpperCase(text, start + 1, end)) {
+                String word = text.subSequence(start, end).toString();
+                findings.accept(new Finding(Finding.Type.MIXED_CAPITALIZATION, word, offset + start, offset + end,
+                        Collections.singletonList(word.charAt(0) + word.substring(1).toLowerCase())));
+            }
+        }
+        state.sentenceStart = tokens.isAtSentenceStart();
+    }
+
+    /**
+     * Compares a word with a span of a text, ignoring case
+     * @return True if the span holds the word
+     */
+    private static boolean sameWord(CharSequence word, CharSequence text, int start, int end) {
+        if (word.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char a = word.charAt(i);
+            char b = text.charAt(start + i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasUpperCase(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isUpperCase(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The state a scan carries from one region of a text to the next: whether the next word starts a sentence,
+     * and the previous word of the current sentence for double word detection
+     */
+    public static class ScanState {
+        private boolean sentenceStart = true;
+        private final StringBuilder previousWord = new StringBuilder();
+        private long previousEnd;
+    }
+}
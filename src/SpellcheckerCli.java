@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author gsotelo
+ * Command line entry point that spellchecks files without any dialogs, printing one line per finding and a
+ * throughput summary. Files are streamed, so their size is not limited by the heap
+ */
+public class SpellcheckerCli {
+
+    /**
+     * Checks every file given on the command line
+     * @param args The files to be checked, optionally preceded by --summary to print only the totals and by --fix
+     *             to write a copy of each file with the first suggestion of every finding applied, as file.fixed
+     */
+    public static void main(String[] args) {
+        boolean summaryOnly = false;
+        boolean fix = false;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--summary")) {
+                summaryOnly = true;
+            } else if (arg.equals("--fix")) {
+                fix = true;
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java SpellcheckerCli [--summary] [--fix] file...");
+            System.exit(2);
+        }
+
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        dictionary.userWordList("user_dict.txt");
+        StreamingChecker checker = new StreamingChecker(new Spellchecker(dictionary));
+
+        long characters = 0;
+        long[] findings = new long[1];
+        long start = System.nanoTime();
+        for (String file : files) {
+            Path path = Paths.get(file);
+            boolean print = !summaryOnly;
+            try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                 Writer out = fix ? Files.newBufferedWriter(path.resolveSibling(path.getFileName() + ".fixed"),
+                         StandardCharsets.UTF_8) : null) {
+                characters += checker.check(in, out, finding -> {
+                    findings[0]++;
+                    if (print) {
+                        System.out.println(file + ":" + checker.getLine() + ":" + checker.getColumn(finding) + ": "
+                                + finding.getType().getTitle() + ": " + finding.getOriginalWord() + " -> "
+                                + (finding.getType() == Finding.Type.DOUBLE_WORD ? "(delete)"
+                                : finding.getSuggestedWords()));
+                    }
+                }, SpellcheckerCli::firstSuggestion);
+            } catch (IOException e) {
+                System.err.println("Could not check " + file + ": " + e.getMessage());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d files, %,d characters, %,d findings in %.2f s (%.1f M characters/s)%n",
+                files.size(), characters, findings[0], seconds, characters / 1e6 / seconds);
+        if (Metrics.ENABLED) {
+            System.err.print(Metrics.report());
+        }
+    }
+
+    /**
+     * Picks the replacement --fix applies for a finding
+     * @param finding The finding
+     * @return The first suggestion, or null if there is none
+     */
+    private static String firstSuggestion(Finding finding) {
+        List<String> suggestions = finding.getSuggestedWords();
+        return suggestions.isEmpty() ? null : suggestions.get(0);
+    }
+}
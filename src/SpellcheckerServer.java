@@ -0,0 +1,284 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author gsotelo
+ * Serves the spellchecker over HTTP on the loopback interface, so other tools can use it. POST /check takes a text
+ * and answers its findings; POST /words takes whitespace separated words and answers whether each is valid, with
+ * suggestions for the invalid ones; POST /complete takes a prefix and answers the most common words starting with
+ * it. Requests are handled on virtual threads when the runtime has them and share one dictionary. Small word
+ * requests are coalesced: they are queued and validated in batches by a single thread against one snapshot of the
+ * dictionary
+ */
+public class SpellcheckerServer {
+    static final int DEFAULT_PORT = 8089;
+    static final int MAX_BODY_BYTES = 1 << 20;
+    // word requests of at most this many words are coalesced, larger ones are validated by their handler
+    static final int SMALL_REQUEST_WORDS = 64;
+    static final int MAX_BATCH_WORDS = 4096;
+    // handlers block while their batch is validated, so without virtual threads they need more than one per core
+    static final int FALLBACK_HANDLER_THREADS = 64;
+    static final int COMPLETIONS = 10;
+
+    private final Dictionary dictionary;
+    private final Spellchecker spellchecker;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockingQueue<PendingWords> pending = new LinkedBlockingQueue<>();
+    private final Thread batcher;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructor binds the server to a loopback port; it does not accept requests until started
+     * @param dictionary The dictionary shared by every request
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public SpellcheckerServer(Dictionary dictionary, int port) throws IOException {
+        this.dictionary = dictionary;
+        this.spellchecker = new Spellchecker(dictionary);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = BatchChecker.newExecutor(FALLBACK_HANDLER_THREADS);
+        server.setExecutor(executor);
+        server.createContext("/check", exchange -> handle(exchange, this::check));
+        server.createContext("/words", exchange -> handle(exchange, this::words));
+        server.createContext("/complete", exchange -> handle(exchange, this::complete));
+        batcher = new Thread(this::validateBatches, "word-batcher");
+        batcher.setDaemon(true);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        batcher.start();
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to a second for the ones in progress
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        batcher.interrupt();
+    }
+
+    /**
+     * Accessor to retrieve the port the server listens on
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Accessor to retrieve the number of batches the coalesced word requests were validated in
+     * @return the number of batches
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Accessor to retrieve the number of word requests that were coalesced
+     * @return the number of coalesced requests
+     */
+    public long getCoalescedRequests() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Reads the body of a POST request, answers it with the JSON built by a handler and maps failures to an
+     * error status
+     */
+    private void handle(HttpExchange exchange, RequestHandler handler) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().add("Allow", "POST");
+                respond(exchange, 405, "{\"error\": \"POST required\"}");
+                return;
+            }
+            String body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "{\"error\": \"Body larger than " + MAX_BODY_BYTES + " bytes\"}");
+                return;
+            }
+            respond(exchange, 200, handler.handle(body));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            respond(exchange, 500, "{\"error\": " + Json.quote(String.valueOf(e.getMessage())) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Completes a prefix
+     * @param prefix The typed prefix
+     * @return A JSON object with the completions, most common first
+     */
+    private String complete(String prefix) {
+        return "{\"completions\": " + Json.array(dictionary.complete(prefix.trim(), COMPLETIONS, true)) + "}";
+    }
+
+    /**
+     * Checks a text
+     * @param text The text to be checked
+     * @return A JSON object with the findings of the text
+     */
+    private String check(String text) {
+        StringBuilder json = new StringBuilder("{\"findings\": [");
+        List<Finding> findings = spellchecker.check(text);
+        for (int i = 0; i < findings.size(); i++) {
+            Finding finding = findings.get(i);
+            json.append(i == 0 ? "" : ", ").append("{\"type\": ")
+                    .append(Json.quote(finding.getType().name().toLowerCase())).append(", \"word\": ")
+                    .append(Json.quote(finding.getOriginalWord())).append(", \"start\": ").append(finding.getStart())
+                    .append(", \"end\": ").append(finding.getEnd()).append(", \"suggestions\": ")
+                    .append(Json.array(finding.getSuggestedWords())).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Validates a list of words, coalescing small lists with those of concurrent requests
+     * @param body The words, separated by whitespace
+     * @return A JSON object with the validity of each word and suggestions for the invalid ones
+     */
+    private String words(String body) {
+        String trimmed = body.trim();
+        String[] words = trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+        boolean[] valid;
+        if (words.length <= SMALL_REQUEST_WORDS) {
+            PendingWords request = new PendingWords(words);
+            pending.add(request);
+            valid = request.result.join();
+        } else {
+            valid = validate(dictionary.getSnapshot(), words);
+        }
+
+        StringBuilder json = new StringBuilder("{\"words\": [");
+        for (int i = 0; i < words.length; i++) {
+            json.append(i == 0 ? "" : ", ").append("{\"word\": ").append(Json.quote(words[i]))
+                    .append(", \"valid\": ").append(valid[i]);
+            if (!valid[i]) {
+                json.append(", \"suggestions\": ").append(Json.array(dictionary.getSuggestions(words[i])));
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Body of the batcher thread: takes every word request queued while the previous batch ran and validates them
+     * together against one snapshot
+     */
+    private void validateBatches() {
+        List<PendingWords> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            int words = batch.get(0).words.length;
+            PendingWords next;
+            while (words < MAX_BATCH_WORDS && (next = pending.poll()) != null) {
+                batch.add(next);
+                words += next.words.length;
+            }
+            Dictionary.Snapshot snapshot = dictionary.getSnapshot();
+            for (PendingWords request : batch) {
+                try {
+                    request.result.complete(validate(snapshot, request.words));
+                } catch (RuntimeException e) {
+                    request.result.completeExceptionally(e);
+                }
+            }
+            batches.increment();
+            coalesced.add(batch.size());
+            batch.clear();
+        }
+    }
+
+    private static boolean[] validate(Dictionary.Snapshot snapshot, String[] words) {
+        boolean[] valid = new boolean[words.length];
+        for (int i = 0; i < words.length; i++) {
+            valid[i] = snapshot.isValid(words[i], 0, words[i].length());
+            Metrics.countWord(valid[i]);
+        }
+        return valid;
+    }
+
+    /**
+     * Reads a request body as UTF-8
+     * @return The body, or null if it is larger than MAX_BODY_BYTES
+     */
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Runs the server until the process is stopped
+     * @param args [--port N]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Usage: java SpellcheckerServer [--port N]");
+                System.exit(2);
+            }
+        }
+        Dictionary dictionary = Dictionary.loadShared("words_alpha.txt", "user_dict.txt").join();
+        SpellcheckerServer server = new SpellcheckerServer(dictionary, port);
+        server.start();
+        System.err.println("Spellchecker listening on http://127.0.0.1:" + server.getPort());
+    }
+
+    /**
+     * Builds the JSON answer of a request from its body
+     */
+    private interface RequestHandler {
+        String handle(String body);
+    }
+
+    /**
+     * A small word request waiting for its batch
+     */
+    private static final class PendingWords {
+        final String[] words;
+        final CompletableFuture<boolean[]> result = new CompletableFuture<>();
+
+        PendingWords(String[] words) {
+            this.words = words;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * @author gsotelo
+ * Spellchecks a character stream of any length through a fixed size buffer. Each buffer is checked up to its last
+ * word boundary and the rest is carried over to the next read, together with the engine's scan state, so peak
+ * memory does not depend on the size of the input
+ */
+public class StreamingChecker {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Spellchecker spellchecker;
+    private final char[] buffer;
+    private long line;
+    private long lineStart;
+
+    /**
+     * Constructor creates a streaming checker with the default buffer size
+     * @param spellchecker The engine used to check each buffer
+     */
+    public StreamingChecker(Spellchecker spellchecker) {
+        this(spellchecker, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor creates a streaming checker
+     * @param spellchecker The engine used to check each buffer
+     * @param bufferSize The number of characters read at a time, which bounds the longest word checked whole
+     */
+    public StreamingChecker(Spellchecker spellchecker, int bufferSize) {
+        this.spellchecker = spellchecker;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Checks a stream, reporting findings as they are found and writing the corrected text as it goes
+     * @param in The text to be spellchecked
+     * @param out Receives the corrected text, or null if only the findings are wanted
+     * @param findings Receives the findings in the order of the text, at offsets within the whole stream
+     * @param corrector Chooses the replacement of a finding, or returns null to leave its text unchanged; when
+     *                  two findings overlap only the first one replaced is applied
+     * @return The number of characters read
+     * @throws IOException If the stream cannot be read or written
+     */
+    public long check(Reader in, Writer out, Consumer<Finding> findings, Function<Finding, String> corrector)
+            throws IOException {
+        Spellchecker.ScanState state = new Spellchecker.ScanState();
+        List<Finding> chunkFindings = new ArrayList<>();
+        long offset = 0;
+        int length = 0;
+        boolean eof = false;
+        line = 1;
+        lineStart = 0;
+        while (!eof || length > 0) {
+            while (!eof && length < buffer.length) {
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    length += read;
+                }
+            }
+            CharBuffer text = CharBuffer.wrap(buffer, 0, length);
+            int cut = eof ? length : lastWordBoundary(length);
+
+            chunkFindings.clear();
+            spellchecker.check(text, 0, cut, offset, state, chunkFindings::add);
+            int written = 0;
+            int counted = 0;
+            for (Finding finding : chunkFindings) {
+                int start = (int) (finding.getStart() - offset);
+                for (; counted < start; counted++) {
+                    if (buffer[counted] == '\n') {
+                        line++;
+                        lineStart = offset + counted + 1;
+                    }
+                }
+                findings.accept(finding);
+                String replacement = corrector.apply(finding);
+                if (replacement != null && start >= written) {
+                    if (out != null) {
+                        out.write(buffer, written, start - written);
+                        out.write(replacement);
+                    }
+                    written = (int) (finding.getEnd() - offset);
+                }
+            }
+            for (; counted < cut; counted++) {
+                if (buffer[counted] == '\n') {
+                    line++;
+                    lineStart = offset + counted + 1;
+                }
+            }
+            if (out != null) {
+                out.write(buffer, written, cut - written);
+            }
+
+            System.arraycopy(buffer, cut, buffer, 0, length - cut);
+            length -= cut;
+            offset += cut;
+        }
+        if (out != null) {
+            out.flush();
+        }
+        return offset;
+    }
+
+    /**
+     * Accessor to retrieve the line of the finding being reported, for use inside the findings consumer
+     * @return the line number, starting at 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Accessor to retrieve the column of a finding being reported, for use inside the findings consumer
+     * @param finding The finding being reported
+     * @return the column number, starting at 1
+     */
+    public long getColumn(Finding finding) {
+        return finding.getStart() - lineStart + 1;
+    }
+
+    /**
+     * Finds the last place in a full buffer where one word ends and a separator follows, so that the words before
+     * it and the scan state are final. Falls back to the whole buffer when it holds a single word
+     * @param length The number of characters in the buffer
+     * @return The number of characters that can be checked
+     */
+    private int lastWordBoundary(int length) {
+        for (int i = length - 1; i > 0; i--) {
+            char c = buffer[i];
+            if (Tokenizer.isWordChar(buffer[i - 1]) && !Tokenizer.isWordChar(c)
+                    && !(Tokenizer.isApostrophe(c) && (i + 1 >= length || Tokenizer.isWordChar(buffer[i + 1])))) {
+                return i;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @author gsotelo
+ * Bounded, thread-safe least recently used cache of suggestion lists, keyed on the normalized word. Keeps hit,
+ * miss and eviction counts so the capacity can be sized from production numbers
+ */
+public class SuggestionCache {
+    private final int capacity;
+    private final LinkedHashMap<String, List<String>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    // bumped by every invalidation, so results computed against an older dictionary are never stored
+    private long generation;
+
+    /**
+     * Constructor creates an empty cache
+     * @param capacity The maximum number of cached words
+     */
+    public SuggestionCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                if (size() > SuggestionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the cached suggestions of a word, computing and caching them on a miss. The computation runs
+     * outside the lock, so concurrent misses on the same word may compute it twice
+     * @param word The normalized word
+     * @param compute Computes the suggestions of a word
+     * @return The suggestions of the word
+     */
+    public List<String> get(String word, Function<String, List<String>> compute) {
+        long observed;
+        synchronized (this) {
+            List<String> cached = entries.get(word);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            observed = generation;
+        }
+        List<String> suggestions = compute.apply(word);
+        synchronized (this) {
+            if (observed == generation) {
+                entries.put(word, suggestions);
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Drops every cached entry, for instance after words were added to the dictionary
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        generation++;
+    }
+
+    /**
+     * Accessor to retrieve the number of lookups answered from the cache
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Accessor to retrieve the number of lookups that had to compute suggestions
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Accessor to retrieve the number of entries dropped to stay within capacity
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Accessor to retrieve the number of cached words
+     * @return the number of cached words
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Accessor to retrieve the maximum number of cached words
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -1,5 +1,27 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
 
 public class TestCases {
 
@@ -29,6 +51,37 @@ public class TestCases {
         testAddUserDictionary();
         testIsValid();
         testGetSuggestions();
+        testLoad();
+        testSnapshot();
+        testUserDictionaryJournal();
+
+        // WordGraph Tests
+        testWordGraph();
+        testCompiledDictionary();
+        testDeletionIndex();
+        testBloomFilter();
+        testPhoneticIndex();
+        testRankedSuggestions();
+        testSuggestionCache();
+        testWordFrequencies();
+        testPrefixCompletion();
+
+        // Tokenizer Tests
+        testTokenizer();
+
+        // Spellchecker Tests
+        testSpellchecker();
+        testStreamingChecker();
+        testParallelChecker();
+        testBatchChecker();
+        testEditBuffer();
+        testReviewSession();
+        testCorrectionMemory();
+        testMetrics();
+        testSpellcheckerServer();
+        testIncrementalChecker();
+        testIncrementalCheckerRandomized();
+        testDocumentView();
     }
 
     private static void testWordList() {
@@ -76,4 +129,933 @@ public class TestCases {
             System.out.println("Get Suggestions Test Failed");
         }
     }
+
+    private static void testLoad() {
+        CompletableFuture<Dictionary> load = Dictionary.loadShared("words_alpha.txt", "user_dict.txt");
+        Dictionary dictionary = load.join();
+        // a missing word list fails the load instead of leaving an empty dictionary
+        boolean failed = false;
+        try {
+            new Dictionary().readWordList("missing_words.txt");
+        } catch (IOException e) {
+            failed = true;
+        }
+        if (dictionary.isValid("testword") && dictionary.isValid("example") && failed) {
+            System.out.println("Load Test Passed");
+        } else {
+            System.out.println("Load Test Failed");
+        }
+    }
+
+    private static void testSnapshot() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        Dictionary.Snapshot before = dictionary.getSnapshot();
+        dictionary.addUserWords(Collections.singletonList("snapshotword")); // not persisted to user_dict.txt
+        Dictionary.Snapshot after = dictionary.getSnapshot();
+
+        // a reader holding the earlier snapshot keeps a consistent view of the words
+        boolean passed = !before.isValid("snapshotword", 0, 12) && after.isValid("snapshotword", 0, 12)
+                && dictionary.isValid("snapshotword") && before.size() == after.size()
+                && Dictionary.getShared() == Dictionary.getShared();
+        if (passed) {
+            System.out.println("Snapshot Test Passed");
+        } else {
+            System.out.println("Snapshot Test Failed");
+        }
+    }
+
+    private static void testUserDictionaryJournal() {
+        try {
+            Path directory = Files.createTempDirectory("journal");
+            Path file = directory.resolve("user_dict.txt");
+            Files.writeString(file, "alpha\n");
+            Dictionary dictionary = new Dictionary();
+            dictionary.journalUserWordList(file.toString());
+            UserDictionaryJournal journal = dictionary.getJournal();
+
+            // added words are valid at once and written by the next flush
+            dictionary.addUserDictionary("Beta");
+            boolean passed = dictionary.isValid("alpha") && dictionary.isValid("beta");
+            journal.flush();
+            passed &= Files.readAllLines(file).equals(Arrays.asList("alpha", "beta"));
+
+            // lines appended by another process are picked up by the watcher
+            Files.writeString(file, "gamma\nalpha\nalpha\n", StandardOpenOption.APPEND);
+            for (int wait = 0; wait < 100 && !dictionary.isValid("gamma"); wait++) {
+                Thread.sleep(50);
+            }
+            passed &= dictionary.isValid("gamma");
+
+            journal.compact();
+            passed &= Files.readAllLines(file).equals(Arrays.asList("alpha", "beta", "gamma"));
+
+            // words deleted from the file by another process stay deleted when the file is compacted
+            Files.writeString(file, "alpha\ngamma\n");
+            journal.reload();
+            passed &= !dictionary.isValid("beta") && dictionary.isValid("gamma");
+            journal.compact();
+            passed &= Files.readAllLines(file).equals(Arrays.asList("alpha", "gamma"));
+
+            // and are written again when the user adds them back, also after a rewrite of the same size
+            Thread.sleep(20); // a later modification time than the compacted file
+            Files.writeString(file, "alpha\ndelta\n");
+            journal.reload();
+            dictionary.addUserDictionary("beta");
+            dictionary.addUserDictionary("gamma");
+            journal.flush();
+            passed &= Files.readAllLines(file).equals(Arrays.asList("alpha", "delta", "beta", "gamma"))
+                    && dictionary.isValid("delta");
+
+            // a last line without a line separator is read once the file stops growing
+            Files.writeString(file, "epsilon", StandardOpenOption.APPEND);
+            for (int wait = 0; wait < 100 && !dictionary.isValid("epsilon"); wait++) {
+                Thread.sleep(50);
+            }
+            passed &= dictionary.isValid("epsilon");
+
+            // and at once when the file is read whole; the next append starts on a line of its own
+            Files.writeString(file, "alpha\nzeta");
+            journal.reload();
+            passed &= dictionary.isValid("zeta") && !dictionary.isValid("epsilon") && !dictionary.isValid("delta");
+            dictionary.addUserDictionary("eta");
+            journal.flush();
+            passed &= Files.readAllLines(file).equals(Arrays.asList("alpha", "zeta", "eta"));
+            journal.close();
+            Files.delete(file);
+            Files.delete(directory);
+            if (passed) {
+                System.out.println("User Dictionary Journal Test Passed");
+            } else {
+                System.out.println("User Dictionary Journal Test Failed");
+            }
+        } catch (IOException | InterruptedException e) {
+            System.out.println("User Dictionary Journal Test Failed");
+        }
+    }
+
+    private static void testWordGraph() {
+        List<String> words = Arrays.asList("tap", "taps", "top", "tops", "car", "cars", "tap", "a");
+        WordGraph graph = WordGraph.merge(new WordGraph(words), Arrays.asList("cat", "cats"));
+
+        List<String> iterated = new ArrayList<>();
+        graph.forEach(iterated::add);
+        boolean passed = iterated.equals(Arrays.asList("a", "car", "cars", "cat", "cats", "tap", "taps", "top", "tops"))
+                && graph.contains("tops") && !graph.contains("to") && !graph.contains("tapss");
+        for (int i = 0; i < graph.size(); i++) {
+            passed &= graph.indexOf(graph.wordAt(i)) == i;
+        }
+
+        if (passed) {
+            System.out.println("WordGraph Test Passed");
+        } else {
+            System.out.println("WordGraph Test Failed");
+        }
+    }
+
+    private static void testCompiledDictionary() {
+        try {
+            Path text = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(text, "alpha\nbeta\n");
+            Dictionary.compile(text.toString());
+            Dictionary compiled = new Dictionary();
+            compiled.wordList(text.toString());
+            boolean passed = compiled.isValid("beta") && !compiled.isValid("gamma");
+
+            // a changed text file makes the compiled copy out of date
+            Files.writeString(text, "alpha\ngamma\ndelta\n");
+            Dictionary reloaded = new Dictionary();
+            reloaded.wordList(text.toString());
+            passed &= reloaded.isValid("gamma") && !reloaded.isValid("beta");
+
+            Files.delete(Dictionary.compiledPath(text));
+            Files.delete(text);
+            if (passed) {
+                System.out.println("Compiled Dictionary Test Passed");
+            } else {
+                System.out.println("Compiled Dictionary Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Compiled Dictionary Test Failed");
+        }
+    }
+
+    private static void testDeletionIndex() {
+        WordGraph words = new WordGraph(Arrays.asList("the", "then", "test", "example", "examples", "tea"));
+        DeletionIndex index = new DeletionIndex(words, 2, 7);
+        boolean passed = index.lookup("teh").equals(Arrays.asList("tea", "the", "test", "then"))
+                && index.lookup("tast").contains("test")
+                && index.lookup("exampel").equals(Arrays.asList("example", "examples"))
+                && !index.lookup("test").contains("test");
+
+        try {
+            Path file = Files.createTempFile("suggestions", ".idx");
+            index.save(file, words);
+            DeletionIndex loaded = DeletionIndex.load(file, words, 2, 7);
+            passed &= loaded != null && loaded.lookup("teh").equals(index.lookup("teh"))
+                    && DeletionIndex.load(file, words, 1, 7) == null;
+            // a truncated or padded file is rebuilt instead of failing on a short read
+            byte[] saved = Files.readAllBytes(file);
+            for (int length : new int[] {32, 40, saved.length / 2, saved.length - 1, saved.length + 2}) {
+                Files.write(file, Arrays.copyOf(saved, length));
+                passed &= DeletionIndex.load(file, words, 2, 7) == null;
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            passed = false;
+        }
+
+        if (passed) {
+            System.out.println("Deletion Index Test Passed");
+        } else {
+            System.out.println("Deletion Index Test Failed");
+        }
+    }
+
+    private static void testBloomFilter() {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            list.add(Integer.toString(i * 7919, 26).replaceAll("[0-9]", "x").replace('p', 'z'));
+        }
+        WordGraph words = new WordGraph(list);
+        BlockedBloomFilter filter = new BlockedBloomFilter(words, 0.01);
+        boolean passed = list.stream().allMatch(word -> filter.mightContain(word, 0, word.length()))
+                && filter.mightContain("Q" + list.get(5).toUpperCase() + "!", 1, list.get(5).length() + 2);
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String missing = "qw" + Integer.toString(i, 26);
+            falsePositives += filter.mightContain(missing, 0, missing.length()) ? 1 : 0;
+        }
+        passed &= falsePositives < 2000;
+
+        try {
+            Path file = Files.createTempFile("words", ".bloom");
+            filter.save(file, words);
+            BlockedBloomFilter loaded = BlockedBloomFilter.load(file, words, 0.01);
+            passed &= loaded != null && loaded.mightContain(list.get(9), 0, list.get(9).length())
+                    && loaded.sizeInBytes() == filter.sizeInBytes() && BlockedBloomFilter.load(file, words, 0.1) == null;
+            Files.delete(file);
+        } catch (IOException e) {
+            passed = false;
+        }
+
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        dictionary.useBloomFilter(0.01, null);
+        dictionary.addUserWords(Collections.singletonList("jsccheck"));
+        passed &= dictionary.isValid("Cat") && !dictionary.isValid("catq") && dictionary.isValid("JscCheck");
+
+        if (passed) {
+            System.out.println("Bloom Filter Test Passed (" + falsePositives / 1000.0 + "% false positives)");
+        } else {
+            System.out.println("Bloom Filter Test Failed");
+        }
+    }
+
+    private static void testPhoneticIndex() {
+        WordGraph words = new WordGraph(Arrays.asList("cat", "knowledge", "night", "phonetic", "phonetics", "the"));
+        PhoneticIndex index = new PhoneticIndex(words);
+        boolean passed = PhoneticIndex.encode("fonetik").equals("FNTK") && PhoneticIndex.encode("nolij").equals("NLJ")
+                && index.lookup("fonetik", 10).equals(Collections.singletonList("phonetic"))
+                && index.lookup("nolij", 10).equals(Collections.singletonList("knowledge"))
+                && index.lookup("nite", 10).equals(Collections.singletonList("night"))
+                && index.lookup("phonetic", 10).isEmpty();
+
+        try {
+            Path file = Files.createTempFile("words", ".phonetic");
+            index.save(file);
+            PhoneticIndex loaded = PhoneticIndex.load(file, words);
+            passed &= loaded != null && loaded.lookup("fonetik", 10).equals(index.lookup("fonetik", 10))
+                    && PhoneticIndex.load(file, new WordGraph(Arrays.asList("cat", "the"))) == null
+                    && Dictionary.phoneticPath(Paths.get("dir", "words.txt"))
+                            .equals(Paths.get("dir", "words.phonetic"));
+            // a truncated or padded file is rebuilt instead of failing on a short read
+            byte[] saved = Files.readAllBytes(file);
+            for (int length : new int[] {20, 24, saved.length / 2, saved.length - 1, saved.length + 4}) {
+                Files.write(file, Arrays.copyOf(saved, length));
+                passed &= PhoneticIndex.load(file, words) == null;
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            passed = false;
+        }
+
+        // edit based suggestions come first; sound-alike words only when there are few of them
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        boolean without = dictionary.getSuggestions("fonetik").isEmpty();
+        dictionary.usePhoneticIndex(null);
+        dictionary.addUserWords(Collections.singletonList("jscfonetik"));
+        passed &= without && dictionary.getSuggestions("fonetik").contains("phonetic")
+                && dictionary.getSuggestions("jskfonetik").contains("jscfonetik")
+                && dictionary.getSuggestions("catq").contains("cat");
+
+        if (passed) {
+            System.out.println("Phonetic Index Test Passed");
+        } else {
+            System.out.println("Phonetic Index Test Failed");
+        }
+    }
+
+    private static void testRankedSuggestions() {
+        WordGraph words = new WordGraph(Arrays.asList("the", "then", "test", "tea", "example", "examples", "sample"));
+        List<String> closest = new LevenshteinSearch("exampel", 2, 2).search(words).getResults();
+        List<String> limited = new LevenshteinSearch("teh", 2, 2).search(words).getResults();
+
+        boolean passed = closest.equals(Arrays.asList("example", "examples"))
+                && limited.equals(Arrays.asList("tea", "the"))
+                && new LevenshteinSearch("tets", 1, 10).search(words).getResults().equals(Arrays.asList("test"));
+        if (passed) {
+            System.out.println("Ranked Suggestions Test Passed");
+        } else {
+            System.out.println("Ranked Suggestions Test Failed");
+        }
+    }
+
+    private static void testSuggestionCache() {
+        try {
+            Path text = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(text, "world\nword\n");
+            Dictionary dictionary = new Dictionary();
+            dictionary.wordList(text.toString());
+            Files.delete(text);
+
+            List<String> first = dictionary.getSuggestions("wrld");
+            List<String> repeated = dictionary.getSuggestions("Wrld,");
+            SuggestionCache cache = dictionary.getSuggestionCache();
+            boolean passed = first.equals(Arrays.asList("world")) && repeated == first
+                    && cache.getHits() == 1 && cache.getMisses() == 1;
+
+            // a new user word invalidates the cached suggestions
+            dictionary.addUserWords(Collections.singletonList("wrlds")); // not persisted to user_dict.txt
+            passed &= dictionary.getSuggestions("wrld").equals(Arrays.asList("world", "wrlds"))
+                    && cache.getMisses() == 2;
+
+            SuggestionCache bounded = new SuggestionCache(2);
+            for (String word : Arrays.asList("a", "b", "a", "c", "b")) {
+                bounded.get(word, key -> Arrays.asList(key));
+            }
+            passed &= bounded.size() == 2 && bounded.getEvictions() == 2 && bounded.getHits() == 1;
+            if (passed) {
+                System.out.println("Suggestion Cache Test Passed");
+            } else {
+                System.out.println("Suggestion Cache Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Suggestion Cache Test Failed");
+        }
+    }
+
+    private static void testTokenizer() {
+        String text = "Don't stop-now, \"they\" said.\nthe 3rd time?  Yes";
+        List<String> words = new ArrayList<>();
+        List<String> sentenceStarts = new ArrayList<>();
+        Tokenizer tokens = new Tokenizer(text);
+        while (tokens.next()) {
+            String word = text.substring(tokens.start(), tokens.end());
+            words.add(tokens.hasDigit() ? "#" + word : word);
+            if (tokens.isSentenceStart()) {
+                sentenceStarts.add(word);
+            }
+        }
+
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        boolean passed = words.equals(Arrays.asList("Don't", "stop", "now", "they", "said", "the", "#3rd", "time",
+                "Yes"))
+                && sentenceStarts.equals(Arrays.asList("Don't", "the", "Yes"))
+                && Tokenizer.sentenceEnd(text, 0) == text.indexOf("the 3rd")
+                && dictionary.isValid(text, text.indexOf("said"), text.indexOf("said") + 4)
+                && !dictionary.isValid("stopp now", 0, 5);
+        if (passed) {
+            System.out.println("Tokenizer Test Passed");
+        } else {
+            System.out.println("Tokenizer Test Failed");
+        }
+    }
+
+    private static void testSpellchecker() {
+        try {
+            Path words = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(words, "the cat sat dog saw houses\n");
+            Dictionary dictionary = new Dictionary();
+            dictionary.wordList(words.toString());
+            Files.delete(words);
+
+            String text = "The the cat sat. the dgo saw 3 HOuses";
+            List<String> found = new ArrayList<>();
+            for (Finding finding : new Spellchecker(dictionary).check(text)) {
+                found.add(finding.getType() + " " + text.substring((int) finding.getStart(), (int) finding.getEnd()));
+            }
+            Finding misspelling = new Spellchecker(dictionary).check("dgo").get(1);
+
+            boolean passed = found.equals(Arrays.asList("DOUBLE_WORD  the", "SENTENCE_CAPITALIZATION the",
+                    "MISSPELLING dgo", "MIXED_CAPITALIZATION HOuses"))
+                    && misspelling.getSuggestedWords().equals(Arrays.asList("dog"));
+            if (passed) {
+                System.out.println("Spellchecker Test Passed");
+            } else {
+                System.out.println("Spellchecker Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Spellchecker Test Failed");
+        }
+    }
+
+    private static void testStreamingChecker() {
+        try {
+            Path words = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(words, "the cat sat dog saw houses\n");
+            Dictionary dictionary = new Dictionary();
+            dictionary.wordList(words.toString());
+            Files.delete(words);
+            Spellchecker spellchecker = new Spellchecker(dictionary);
+
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append(i % 7 == 0 ? "the dgo sat sat.\n" : "The cat saw houses. ");
+            }
+            List<Finding> whole = spellchecker.check(text);
+
+            // a tiny buffer puts chunk boundaries inside sentences and between double words
+            List<Finding> streamed = new ArrayList<>();
+            StringWriter corrected = new StringWriter();
+            long read = new StreamingChecker(spellchecker, 11).check(new StringReader(text.toString()), corrected,
+                    streamed::add, finding -> finding.getType() == Finding.Type.MISSPELLING ? null
+                            : finding.getSuggestedWords().get(0));
+
+            boolean passed = read == text.length() && streamed.toString().equals(whole.toString())
+                    && corrected.toString().equals(text.toString().replace("the dgo sat sat.", "The dgo sat."));
+            if (passed) {
+                System.out.println("Streaming Checker Test Passed");
+            } else {
+                System.out.println("Streaming Checker Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Streaming Checker Test Failed");
+        }
+    }
+
+    private static void testParallelChecker() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        Spellchecker spellchecker = new Spellchecker(dictionary);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(i % 3 == 0 ? "the tset is is done. " : "\"Is it?\" she asked.\n");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Finding> parallel = new ParallelChecker(spellchecker, pool, 64).check(text);
+        pool.shutdown();
+        if (parallel.toString().equals(spellchecker.check(text).toString())) {
+            System.out.println("Parallel Checker Test Passed");
+        } else {
+            System.out.println("Parallel Checker Test Failed");
+        }
+    }
+
+    private static void testBatchChecker() {
+        try {
+            Path words = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(words, "the cat sat dog\n");
+            Dictionary dictionary = new Dictionary();
+            dictionary.wordList(words.toString());
+            Files.delete(words);
+
+            Path root = Files.createTempDirectory("batch");
+            Files.createDirectories(root.resolve("docs"));
+            Files.writeString(root.resolve("a.txt"), "The cat sat.");
+            Files.writeString(root.resolve("docs/b.md"), "The dgo sat sat.");
+            Files.writeString(root.resolve("docs/c.java"), "ignored");
+            List<BatchChecker.FileResult> results = new BatchChecker(new Spellchecker(dictionary), 1)
+                    .check(root, BatchChecker.DEFAULT_INCLUDE);
+            StringWriter report = new StringWriter();
+            BatchChecker.writeReport(report, root, results, 0);
+            for (String file : Arrays.asList("a.txt", "docs/b.md", "docs/c.java", "docs")) {
+                Files.delete(root.resolve(file));
+            }
+            Files.delete(root);
+
+            boolean passed = results.size() == 2 && results.get(0).getFindings() == 0
+                    && results.get(1).getCount(Finding.Type.MISSPELLING) == 1
+                    && results.get(1).getCount(Finding.Type.DOUBLE_WORD) == 1
+                    && report.toString().contains("\"files\": 2") && report.toString().contains("\"findings\": 2");
+            if (passed) {
+                System.out.println("Batch Checker Test Passed");
+            } else {
+                System.out.println("Batch Checker Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Batch Checker Test Failed");
+        }
+    }
+
+    private static void testWordFrequencies() {
+        try {
+            List<String> words = Arrays.asList("tea", "teeth", "ted", "tel", "the", "then");
+            Path dictionaryFile = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(dictionaryFile, String.join("\n", words));
+            Path counts = Files.createTempFile("frequencies", ".csv");
+            Files.writeString(counts, "word,count\nthe,23135851162\ntea,1000\nted,50\nthen,2000000\nunknown,5\n");
+
+            Dictionary dictionary = new Dictionary();
+            dictionary.wordList(dictionaryFile.toString());
+            dictionary.useDeletionIndex(2, 7, null);
+            List<String> unranked = dictionary.getSuggestions("teh");
+            dictionary.useFrequencies(counts.toString());
+            List<String> ranked = dictionary.getSuggestions("teh");
+            WordFrequencies frequencies = WordFrequencies.load(counts, new WordGraph(words));
+            Files.delete(dictionaryFile);
+            Files.delete(counts);
+
+            boolean passed = unranked.equals(Arrays.asList("tea", "ted", "tel", "the", "teeth", "then"))
+                    && ranked.equals(Arrays.asList("the", "then", "tea", "ted", "tel", "teeth"))
+                    && frequencies.count("the") == Integer.MAX_VALUE && frequencies.count("unknown") == 0
+                    && frequencies.rank("teh", unranked, 2).equals(Arrays.asList("the", "then"));
+            if (passed) {
+                System.out.println("Word Frequencies Test Passed");
+            } else {
+                System.out.println("Word Frequencies Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Word Frequencies Test Failed");
+        }
+    }
+
+    private static void testPrefixCompletion() {
+        try {
+            List<String> words = Arrays.asList("tea", "teeth", "ted", "tel", "the", "then", "there", "to");
+            WordGraph graph = new WordGraph(words);
+            boolean passed = graph.prefixRange("th") == ((4L << 32) | 7) && graph.prefixRange("te") == 4
+                    && graph.prefixRange("") == 8 && graph.prefixRange("tx") == 0 && graph.prefixRange("thex") == 0;
+
+            Path dictionaryFile = Files.createTempFile("dictionary", ".txt");
+            Files.writeString(dictionaryFile, String.join("\n", words));
+            Path counts = Files.createTempFile("frequencies", ".csv");
+            Files.writeString(counts, "the,23135851162\nthen,2000000\nted,50\ntea,1000\nto,9000\n");
+            Dictionary dictionary = new Dictionary();
+            dictionary.wordList(dictionaryFile.toString());
+            dictionary.addUserWords(Collections.singletonList("tef"));
+            List<String> alphabetical = dictionary.complete("Te", 3, true);
+            dictionary.useFrequencies(counts.toString());
+            List<String> ranked = dictionary.complete("Te", 3, true);
+            Files.delete(dictionaryFile);
+            Files.delete(counts);
+
+            passed &= alphabetical.equals(Arrays.asList("tea", "ted", "teeth"))
+                    && ranked.equals(Arrays.asList("tea", "ted", "teeth"))
+                    && dictionary.complete("t", 4, true).equals(Arrays.asList("the", "then", "to", "tea"))
+                    && dictionary.complete("te", 10, true).equals(Arrays.asList("tea", "ted", "teeth", "tef", "tel"))
+                    && dictionary.complete("th", 10, false).equals(Arrays.asList("the", "then", "there"))
+                    && dictionary.complete("tx", 10, true).isEmpty()
+                    && dictionary.complete("te", 0, true).isEmpty() && dictionary.complete("te", -1, false).isEmpty();
+            if (passed) {
+                System.out.println("Prefix Completion Test Passed");
+            } else {
+                System.out.println("Prefix Completion Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Prefix Completion Test Failed");
+        }
+    }
+
+    private static void testEditBuffer() {
+        String text = "teh cat sat sat.\n  Its fine";
+        EditBuffer buffer = new EditBuffer(text);
+        buffer.replace(text.indexOf("Its"), 3, "It's");
+        buffer.replace(0, 3, "Teh");
+        buffer.replace(0, 3, "The"); // the same span again replaces the earlier edit
+        buffer.replace(text.indexOf(" sat."), 4, "");
+
+        boolean rejected = false;
+        try {
+            buffer.replace(1, 1, "x");
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        boolean passed = rejected && buffer.size() == 3 && buffer.overlaps(5, 10) && !buffer.overlaps(4, 3)
+                && buffer.toString().equals("The cat sat.\n  It's fine");
+        if (passed) {
+            System.out.println("Edit Buffer Test Passed");
+        } else {
+            System.out.println("Edit Buffer Test Failed");
+        }
+    }
+
+    private static void testReviewSession() {
+        Dictionary dictionary = new Dictionary();
+        try {
+            Path words = Files.createTempFile("review", ".txt");
+            Files.write(words, Arrays.asList("the", "cat", "sat", "on", "mat", "dog", "ran", "end"));
+            dictionary.wordList(words.toString());
+            Files.delete(words);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        String text = "Teh cat sat sat. Teh dog ran. The cat sat on teh mat. Teh end.";
+        List<Finding> found = new Spellchecker(dictionary).check(text);
+        ReviewSession session = new ReviewSession(text);
+
+        // the user works through the first findings while the rest are still arriving
+        List<Finding> stream = new ArrayList<>(found);
+        session.offer(stream.remove(0));
+        session.offer(stream.remove(0));
+        Finding teh = session.getPending().get(0);
+        int resolvedNow = session.replaceAll(teh, "The").size();
+        Finding doubled = session.getPending().get(0);
+        session.replace(doubled, "");
+        int waiting = 0;
+        for (Finding finding : stream) {
+            waiting += session.offer(finding) ? 1 : 0;
+        }
+        Finding lower = session.getPending().get(0);
+        session.ignoreAll(lower);
+
+        boolean passed = resolvedNow == 1 && doubled.getType() == Finding.Type.DOUBLE_WORD
+                && session.getReceived() == found.size() && waiting == 1 && session.getPending().isEmpty()
+                && session.getCorrectedText().equals("The cat sat. The dog ran. The cat sat on teh mat. The end.");
+        if (passed) {
+            System.out.println("Review Session Test Passed");
+        } else {
+            System.out.println("Review Session Test Failed");
+        }
+    }
+
+    private static void testCorrectionMemory() {
+        Dictionary dictionary = new Dictionary();
+        try {
+            Path words = Files.createTempFile("corrections", ".txt");
+            Files.write(words, Arrays.asList("the", "cat", "sat", "on", "mat"));
+            dictionary.wordList(words.toString());
+            Files.delete(words);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        boolean passed = false;
+        try {
+            Path file = Files.createTempFile("corrections", ".txt");
+            Files.delete(file);
+            CorrectionMemory memory = CorrectionMemory.load(file, 2);
+
+            // the user's decisions in a first review are recorded and saved when it finishes
+            String first = "Teh cat sat on the mat. Kat sat.";
+            ReviewSession review = new ReviewSession(first, memory);
+            new Spellchecker(dictionary, memory).check(first).forEach(review::offer);
+            review.replaceAll(review.getPending().get(0), "The");
+            review.ignore(review.getPending().get(0));
+            memory.recordReplacement("xyz", "Xavier");
+            memory.save();
+            boolean evicted = memory.size() == 2 && memory.getEvictions() == 1 && memory.lookup("teh") == null;
+
+            // a later run resolves the remembered words without asking; the evicted one is reviewed again
+            CorrectionMemory reloaded = CorrectionMemory.load(file, 2);
+            String second = "Kat sat on teh mat xyz.";
+            List<Finding> found = new Spellchecker(dictionary, reloaded).check(second);
+            boolean remembered = found.size() == 2 && !found.get(0).isRemembered() && found.get(1).isRemembered()
+                    && found.get(1).getSuggestedWords().equals(Collections.singletonList("Xavier"))
+                    && reloaded.lookup("kat").equals(CorrectionMemory.IGNORE);
+            ReviewSession later = new ReviewSession(second, reloaded);
+            found.forEach(later::offer);
+            boolean applied = later.getPending().size() == 1 && later.getRemembered() == 1
+                    && later.getCorrectedText().equals("Kat sat on teh mat Xavier.");
+
+            // with auto-apply off every word is reviewed again
+            reloaded.setAutoApply(false);
+            boolean manual = new Spellchecker(dictionary, reloaded).check(second).stream()
+                    .noneMatch(Finding::isRemembered) && reloaded.lookup("xyz") == null;
+
+            CorrectionMemory cased = new CorrectionMemory(null, 10);
+            cased.recordReplacement("Teh", "The");
+            boolean matched = cased.lookup("teh").equals("the") && cased.lookup("TEH").equals("THE");
+            Files.delete(file);
+            passed = evicted && remembered && applied && manual && matched;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (passed) {
+            System.out.println("Correction Memory Test Passed");
+        } else {
+            System.out.println("Correction Memory Test Failed");
+        }
+    }
+
+    private static void testMetrics() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        Metrics.resetAll();
+        new Spellchecker(dictionary).check("The cat sat on teh mat.");
+        // instrumentation only records when the JVM runs with -Djsc.metrics=true
+        boolean counted = Metrics.ENABLED
+                ? Metrics.IS_VALID.getCount() == 6 && Metrics.SUGGEST.getCount() == 1
+                && Metrics.TOKENIZE.getCount() == 6 && Metrics.IS_VALID.percentile(0.99) > 0
+                : Metrics.IS_VALID.getCount() == 0 && Metrics.SUGGEST.getCount() == 0;
+        String json = Metrics.json();
+        boolean passed = counted && json.startsWith("{\"wordsChecked\": " + (Metrics.ENABLED ? 6 : 0))
+                && json.contains("\"getSuggestions\": {\"count\": ") && json.endsWith("}}")
+                && Metrics.report().contains("userWait") && Metrics.report().contains("firstPaint");
+        if (passed) {
+            System.out.println("Metrics Test Passed");
+        } else {
+            System.out.println("Metrics Test Failed");
+        }
+    }
+
+    private static void testSpellcheckerServer() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        SpellcheckerServer server = null;
+        try {
+            server = new SpellcheckerServer(dictionary, 0);
+            server.start();
+            String base = "http://127.0.0.1:" + server.getPort();
+            String words = post(base + "/words", "teh cat");
+            String check = post(base + "/check", "The cat sat on teh mat.");
+            String complete = post(base + "/complete", "catt");
+
+            List<CompletableFuture<String>> concurrent = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                concurrent.add(CompletableFuture.supplyAsync(() -> post(base + "/words", "cat dgo")));
+            }
+            boolean allAnswered = concurrent.stream().map(CompletableFuture::join)
+                    .allMatch(body -> body.contains("{\"word\": \"dgo\", \"valid\": false"));
+
+            HttpURLConnection get = (HttpURLConnection) new URL(base + "/words").openConnection();
+            int getStatus = get.getResponseCode();
+            get.disconnect();
+
+            boolean passed = words.startsWith("{\"words\": [{\"word\": \"teh\", \"valid\": false, \"suggestions\": [")
+                    && words.endsWith("{\"word\": \"cat\", \"valid\": true}]}")
+                    && check.startsWith("{\"findings\": [{\"type\": \"misspelling\", \"word\": \"teh\", \"start\": 15, \"end\": 18")
+                    && complete.startsWith("{\"completions\": [\"catt") && allAnswered && getStatus == 405 && server.getCoalescedRequests() == 21
+                    && server.getBatches() >= 1 && server.getBatches() <= 21;
+            if (passed) {
+                System.out.println("Spellchecker Server Test Passed");
+            } else {
+                System.out.println("Spellchecker Server Test Failed");
+            }
+        } catch (IOException e) {
+            System.out.println("Spellchecker Server Test Failed: " + e);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static String post(String url, String body) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+
+    private static void testIncrementalChecker() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        Spellchecker spellchecker = new Spellchecker(dictionary);
+        StringBuilder text = new StringBuilder("The cat sat on the mat. A dog ran. Birds sing in teh trees.");
+        IncrementalChecker checker = new IncrementalChecker(spellchecker);
+        checker.reset(text);
+
+        // typing inside the second sentence re-checks that sentence alone
+        int offset = text.indexOf("ran");
+        text.insert(offset, "ran ");
+        checker.edit(offset, 0, 4);
+        int checked = checker.recheck(text);
+        boolean matches = sameFindings(checker.getFindings(), spellchecker.check(text));
+
+        // deleting a period merges two sentences
+        offset = text.indexOf(". Birds");
+        text.delete(offset, offset + 1);
+        checker.edit(offset, 1, 0);
+        checker.recheck(text);
+        matches &= sameFindings(checker.getFindings(), spellchecker.check(text));
+
+        // a word added to the dictionary is no longer flagged, even in sentences remembered by content hash
+        Runnable invalidate = checker::invalidate;
+        dictionary.addChangeListener(invalidate);
+        int flagged = checker.getFindings().size();
+        dictionary.addUserWords(Collections.singletonList("teh"));
+        checker.recheck(text);
+        boolean forgotten = sameFindings(checker.getFindings(), spellchecker.check(text))
+                && checker.getFindings().size() == flagged - 1;
+        dictionary.removeChangeListener(invalidate);
+
+        // a document is followed through its listener on a worker thread
+        PlainDocument document = new PlainDocument();
+        IncrementalChecker following = new IncrementalChecker(spellchecker);
+        following.attach(document, () -> { });
+        Runnable refresh = following::invalidate;
+        dictionary.addChangeListener(refresh);
+        boolean followed = false;
+        try {
+            document.insertString(0, "Teh cat sat.", null);
+            document.insertString(document.getLength(), " Its a dgo.", null);
+            String expected = spellchecker.check("Teh cat sat. Its a dgo.").toString();
+            for (int wait = 0; wait < 100 && !followed; wait++) {
+                Thread.sleep(50);
+                followed = following.getFindings().toString().equals(expected);
+            }
+            dictionary.addUserWords(Collections.singletonList("dgo"));
+            expected = spellchecker.check("Teh cat sat. Its a dgo.").toString();
+            boolean refreshed = false;
+            for (int wait = 0; wait < 100 && !refreshed; wait++) {
+                Thread.sleep(50);
+                refreshed = following.getFindings().toString().equals(expected);
+            }
+            followed &= refreshed;
+        } catch (BadLocationException | InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            dictionary.removeChangeListener(refresh);
+            following.detach();
+        }
+
+        // edits made while a long document is still being checked are taken in between sentences
+        PlainDocument large = new PlainDocument();
+        IncrementalChecker scanning = new IncrementalChecker(spellchecker);
+        boolean interleaved = false;
+        try {
+            large.insertString(0, "The cat sat on teh mat. A dgo ran. ".repeat(2000), null);
+            scanning.attach(large, () -> { });
+            for (int i = 0; i < 20; i++) {
+                large.insertString(i * 3000, "Teh ", null);
+                large.remove(large.getLength() - i * 2000 - 8, 4);
+            }
+            String expected = spellchecker.check(large.getText(0, large.getLength())).toString();
+            for (int wait = 0; wait < 200 && !interleaved; wait++) {
+                Thread.sleep(50);
+                interleaved = scanning.getFindings().toString().equals(expected);
+            }
+        } catch (BadLocationException | InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            scanning.detach();
+        }
+
+        if (checked == 1 && matches && forgotten && followed && interleaved) {
+            System.out.println("Incremental Checker Test Passed");
+        } else {
+            System.out.println("Incremental Checker Test Failed");
+        }
+    }
+
+    private static void testIncrementalCheckerRandomized() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        Spellchecker spellchecker = new Spellchecker(dictionary);
+        String[] pieces = {"The", "cat", "teh", "sat", "Its", "a", "dgo", "the", " ", " ", "  ", ". ", ".", "!",
+                "? ", "\n", "\n\n", "e.g. ", "mat", "ran ran"};
+        Random random = new Random(19);
+        int failed = 0;
+        // random edits, rechecked every few edits, must leave the same findings as checking the whole text
+        for (int trial = 0; trial < 300; trial++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            IncrementalChecker checker = new IncrementalChecker(spellchecker);
+            checker.reset(text);
+            for (int edit = 0; edit < 20; edit++) {
+                int offset = random.nextInt(text.length() + 1);
+                int removed = random.nextBoolean() ? random.nextInt(Math.min(6, text.length() - offset) + 1) : 0;
+                String inserted = removed > 0 && random.nextBoolean() ? "" : pieces[random.nextInt(pieces.length)];
+                text.replace(offset, offset + removed, inserted);
+                checker.edit(offset, removed, inserted.length());
+                if (random.nextInt(3) == 0 || edit == 19) {
+                    checker.recheck(text);
+                    if (!sameFindings(checker.getFindings(), spellchecker.check(text))) {
+                        failed++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (failed == 0) {
+            System.out.println("Incremental Checker Randomized Test Passed");
+        } else {
+            System.out.println("Incremental Checker Randomized Test Failed");
+        }
+    }
+
+    private static boolean sameFindings(List<Finding> actual, List<Finding> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            Finding a = actual.get(i);
+            Finding e = expected.get(i);
+            if (a.getType() != e.getType() || a.getStart() != e.getStart() || a.getEnd() != e.getEnd()
+                    || !a.getSuggestedWords().equals(e.getSuggestedWords())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void testDocumentView() {
+        Dictionary dictionary = new Dictionary();
+        dictionary.wordList("words_alpha.txt");
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 20_000; line++) {
+            text.append("The cat sat on teh mat.\n");
+        }
+        IncrementalChecker checker = new IncrementalChecker(new Spellchecker(dictionary));
+        checker.reset(text);
+        DocumentView view = new DocumentView();
+        view.getTextArea().setText(text.toString());
+        view.setChecker(checker);
+        view.setSize(400, 200);
+        view.doLayout();
+        view.getViewport().doLayout();
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+
+        // only the findings of the visible lines are painted, wherever the view is scrolled to
+        int lines = view.getViewport().getHeight() / view.getTextArea().getFontMetrics(view.getTextArea().getFont())
+                .getHeight();
+        Graphics2D graphics = image.createGraphics();
+        view.paint(graphics);
+        int top = view.getPaintedFindings();
+        view.getViewport().setViewPosition(new Point(0, view.getTextArea().getHeight() / 2));
+        view.paint(graphics);
+        int middle = view.getPaintedFindings();
+        // findings a recheck behind an edit that shortened the text are clipped instead of failing
+        view.getTextArea().setText("The cat sat on teh mat.");
+        view.getViewport().setViewPosition(new Point(0, 0));
+        view.paint(graphics);
+        int stale = view.getPaintedFindings();
+        graphics.dispose();
+
+        // a range holds the same findings as filtering the whole list
+        List<Finding> all = checker.getFindings();
+        boolean ranged = true;
+        for (int[] range : new int[][] {{0, 0}, {0, 18}, {16, 17}, {18, 15 + 24}, {1000, 5000}, {479_990, 480_000}}) {
+            List<Finding> expected = new ArrayList<>();
+            for (Finding finding : all) {
+                if (finding.getEnd() > range[0] && finding.getStart() < range[1]) {
+                    expected.add(finding);
+                }
+            }
+            ranged &= sameFindings(checker.getFindings(range[0], range[1]), expected);
+        }
+
+        boolean passed = view.getFindingCount() == 20_000 && all.size() == 20_000 && top > 0
+                && Math.abs(top - lines) <= 2 && Math.abs(middle - lines) <= 2 && stale == 1 && ranged;
+        if (passed) {
+            System.out.println("Document View Test Passed");
+        } else {
+            System.out.println("Document View Test Failed");
+        }
+    }
 }
@@ -0,0 +1,175 @@
+/**
+ * @author gsotelo
+ * Single pass tokenizer that yields the word spans of a text without copying it. A word is a run of letters and
+ * digits, including apostrophes between two of them as in contractions; hyphens, whitespace and other punctuation
+ * separate words. A sentence ends at a period, exclamation or question mark followed by whitespace, with any
+ * closing quotes or brackets in between
+ */
+public class Tokenizer {
+    private final CharSequence text;
+    private final int to;
+    private int position;
+    private int start;
+    private int end;
+    private boolean atSentenceStart;
+    private boolean sentenceStart;
+    private boolean digit;
+
+    /**
+     * Constructor creates a tokenizer over a whole text, which starts with a sentence
+     * @param text The text to be tokenized
+     */
+    public Tokenizer(CharSequence text) {
+        this(text, 0, text.length(), true);
+    }
+
+    /**
+     * Constructor creates a tokenizer over a region of a text
+     * @param text The text to be tokenized
+     * @param from The offset the region starts at
+     * @param to The offset the region ends at, exclusive
+     * @param sentenceStart True if the first word of the region starts a sentence
+     */
+    public Tokenizer(CharSequence text, int from, int to, boolean sentenceStart) {
+        this.text = text;
+        this.to = to;
+        this.position = from;
+        this.start = from;
+        this.end = from;
+        this.atSentenceStart = sentenceStart;
+    }
+
+    /**
+     * Advances to the next word
+     * @return True if a word was found, false at the end of the region
+     */
+    public boolean next() {
+        while (position < to && !isWordChar(text.charAt(position))) {
+            if (isSentenceEnd(text, position)) {
+                atSentenceStart = true;
+            }
+            position++;
+        }
+        if (position >= to) {
+            start = end = to;
+            return false;
+        }
+        start = position;
+        digit = false;
+        while (position < to) {
+            char c = text.charAt(position);
+            if (isWordChar(c)) {
+                digit |= Character.isDigit(c);
+            } else if (!isApostrophe(c) || position + 1 >= to || !isWordChar(text.charAt(position + 1))) {
+                break;
+            }
+            position++;
+        }
+        end = position;
+        sentenceStart = atSentenceStart;
+        atSentenceStart = false;
+        return true;
+    }
+
+    /**
+     * Accessor to retrieve the offset of the current word
+     * @return the offset of the first character of the word
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Accessor to retrieve the end of the current word
+     * @return the offset after the last character of the word
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Accessor to retrieve whether the current word is the first word of a sentence
+     * @return True if the word starts a sentence
+     */
+    public boolean isSentenceStart() {
+        return sentenceStart;
+    }
+
+    /**
+     * Accessor to retrieve whether the current word contains a digit
+     * @return True if the word contains a digit
+     */
+    public boolean hasDigit() {
+        return digit;
+    }
+
+    /**
+     * Accessor to retrieve whether the word after the current position starts a sentence, so that a tokenizer
+     * over the following region can carry on
+     * @return True if the next word starts a sentence
+     */
+    public boolean isAtSentenceStart() {
+        return atSentenceStart;
+    }
+
+    /**
+     * Finds the start of the sentence containing an offset
+     * @param text The text
+     * @param offset An offset inside the sentence
+     * @return The offset after the whitespace that follows the previous sentence, or 0
+     */
+    public static int sentenceStart(CharSequence text, int offset) {
+        int i = Math.min(offset, text.length()) - 1;
+        while (i >= 0 && !isSentenceEnd(text, i)) {
+            i--;
+        }
+        return i < 0 ? 0 : sentenceEnd(text, i);
+    }
+
+    /**
+     * Finds the end of the sentence containing an offset
+     * @param text The text
+     * @param from An offset inside the sentence
+     * @return The offset after the sentence's terminating punctuation and whitespace, or the text's length
+     */
+    public static int sentenceEnd(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length() && !isSentenceEnd(text, i)) {
+            i++;
+        }
+        while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether a character ends a sentence: a period, exclamation or question mark followed by whitespace
+     * or by the end of the text, with any closing quotes or brackets in between
+     * @param text The text
+     * @param i The offset of the character
+     * @return True if the character ends a sentence
+     */
+    static boolean isSentenceEnd(CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (c != '.' && c != '!' && c != '?') {
+            return false;
+        }
+        i++;
+        while (i < text.length() && "\"')]\u201D\u2019".indexOf(text.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == text.length() || Character.isWhitespace(text.charAt(i));
+    }
+
+    static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    static boolean isApostrophe(char c) {
+        return c == '\'' || c == '\u2019';
+    }
+}
@@ -0,0 +1,268 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author gsotelo
+ * Keeps the user dictionary file and a dictionary's user words in step. Added words go to memory at once and are
+ * appended to the file in batches by a background thread; the file is rewritten without duplicates once it has
+ * grown well past its unique words. Changes made to the file by other processes are noticed through a WatchService:
+ * appended lines are read on their own, and words deleted from a rewritten file are removed from the dictionary
+ */
+public class UserDictionaryJournal implements Closeable {
+    static final long FLUSH_MILLIS = 250;
+    static final int COMPACT_MIN_LINES = 256;
+
+    private final Path file;
+    private final Dictionary dictionary;
+    private final ScheduledExecutorService flusher;
+    private final WatchService watcher;
+    private final Thread shutdownHook = new Thread(this::flushQuietly);
+    // guarded by this
+    private final List<String> pending = new ArrayList<>();
+    private final Set<String> fileWords = new HashSet<>();
+    private long knownLength;
+    private long knownModified;
+    // the length of the file at the last reload, to tell whether an unterminated last line is still being written
+    private long seenLength = -1;
+    // true while the file ends with a line the last reload left unread
+    private boolean partialLine;
+    // true when the file ends with a word but no line separator, which the next append must add first
+    private boolean unterminated;
+    private int lines;
+
+    /**
+     * Constructor reads the user dictionary file into a dictionary and starts journaling to it
+     * @param file The user dictionary file, created when missing
+     * @param dictionary The dictionary whose user words follow the file
+     * @throws IOException If the file cannot be read or watched
+     */
+    public UserDictionaryJournal(Path file, Dictionary dictionary) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.dictionary = dictionary;
+        if (!Files.exists(this.file)) {
+            Files.createFile(this.file);
+        }
+        reload();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-dictionary-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+
+        watcher = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watch = new Thread(this::watch, "user-dictionary-watcher");
+        watch.setDaemon(true);
+        watch.start();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues a word to be appended to the file by the next flush
+     * @param word The word, in lower case
+     */
+    public synchronized void append(String word) {
+        pending.add(word);
+    }
+
+    /**
+     * Appends the queued words the file does not hold yet with a single write, and compacts the file when it holds
+     * more than twice as many lines as unique words
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (pending.isEmpty()) {
+            if (partialLine) {
+                reload(); // the last line is read once the file has stopped growing
+            }
+            return;
+        }
+        reload(); // take in lines other processes appended first, so knownLength stays exact
+        StringBuilder batch = new StringBuilder(unterminated ? System.lineSeparator() : "");
+        int added = 0;
+        for (String word : pending) {
+            if (fileWords.add(word)) {
+                batch.append(word).append(System.lineSeparator());
+                added++;
+            }
+        }
+        pending.clear();
+        if (added == 0) {
+            return;
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            out.write(batch.toString());
+        }
+        unterminated = false;
+        lines += added;
+        knownLength = Files.size(file);
+        knownModified = Files.getLastModifiedTime(file).toMillis();
+        if (lines >= COMPACT_MIN_LINES && lines > 2 * fileWords.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the file with each word once, in sorted order, replacing it atomically
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        reload();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, new TreeSet<>(fileWords), StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lines = fileWords.size();
+        knownLength = Files.size(file);
+        knownModified = Files.getLastModifiedTime(file).toMillis();
+        partialLine = false;
+        unterminated = false;
+    }
+
+    /**
+     * Brings the dictionary up to date with the file. When the file only grew, just the appended complete lines
+     * are read, and a last line without a line separator once the file has stopped growing; when it was replaced,
+     * shortened or rewritten at the same size, it is read again whole, the words known to be in the file are
+     * rebuilt from it and the words no longer in it are removed from the dictionary. Either way only words not
+     * seen before are added to the dictionary
+     * @throws IOException If the file cannot be read
+     */
+    synchronized void reload() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long length = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        if (length == knownLength && modified == knownModified) {
+            return;
+        }
+        long from = length > knownLength ? knownLength : 0;
+        Set<String> previous = fileWords;
+        if (from == 0) {
+            // words deleted from the file must be written again when they are added back
+            previous = new HashSet<>(fileWords);
+            fileWords.clear();
+            lines = 0;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (length - from));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(from);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // read until the buffer is full or the file ends
+            }
+        }
+        // stop at the last complete line; a line still being written is read once the file stops growing, or at
+        // once when the whole file is read
+        int complete = bytes.position();
+        while (complete > 0 && bytes.get(complete - 1) != '\n') {
+            complete--;
+        }
+        if (complete < bytes.position() && (from == 0 || length == seenLength)) {
+            complete = bytes.position();
+            unterminated = true;
+        } else if (complete > 0) {
+            unterminated = false;
+        }
+        partialLine = complete < bytes.position();
+        seenLength = length;
+        String text = new String(bytes.array(), 0, complete, StandardCharsets.UTF_8);
+        List<String> added = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            String word = line.trim().toLowerCase();
+            if (word.isEmpty()) {
+                continue;
+            }
+            lines++;
+            if (fileWords.add(word) && (from > 0 || !previous.contains(word))) {
+                added.add(word);
+            }
+        }
+        knownLength = from + complete;
+        knownModified = modified;
+        if (!added.isEmpty()) {
+            dictionary.addUserWords(added);
+        }
+        if (from == 0) {
+            // words queued by this process are still to be written, so they are not deleted
+            List<String> removed = new ArrayList<>();
+            for (String word : previous) {
+                if (!fileWords.contains(word) && !pending.contains(word)) {
+                    removed.add(word);
+                }
+            }
+            if (!removed.isEmpty()) {
+                dictionary.removeUserWords(removed);
+            }
+        }
+    }
+
+    /**
+     * Stops the background threads after a last flush
+     * @throws IOException If the last flush fails
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        watcher.close();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // the JVM is already shutting down and runs the hook anyway
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for changes to the directory of the file and reloads the file when it is among them
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())
+                            || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        try {
+                            reload();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the journal was closed
+        }
+    }
+}
@@ -5,8 +5,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * @author gsotelo
@@ -15,33 +15,52 @@ import java.util.Collections;
 public class UserInterface {
     private Path userFile;
     private JTextField browseText;
-    private JTextField output;
-    private Dictionary dictionary;
-    private ArrayList<String> corrections = new ArrayList<>();
+    private DocumentView output;
+    private JLabel problems;
+    private IncrementalChecker incrementalChecker;
+    private CompletableFuture<Dictionary> dictionaryLoad;
+    private CorrectionMemory corrections;
 
     /**
-     * Constructor creates the spellchecker app interface
+     * Constructor creates the spellchecker app interface. The dictionaries load in the background while the window
+     * is shown
      */
     public UserInterface() {
-        dictionary = new Dictionary();
-        dictionary.wordList("words_alpha.txt"); // Load words from a file
+        dictionaryLoad = Dictionary.loadShared("words_alpha.txt", "user_dict.txt"); // Load words from a file
+        corrections = CorrectionMemory.load(Paths.get(CorrectionMemory.DEFAULT_FILE),
+                CorrectionMemory.DEFAULT_CAPACITY);
 
         JFrame frame = new JFrame("Project JSC (Java SpellChecker)");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(1012, 616);
 
-        JPanel mainPanel = new JPanel(new GridLayout(6, 3));
+        JPanel mainPanel = new JPanel(new BorderLayout()) {
+            private static final long serialVersionUID = 1L;
+            private boolean painted;
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (!painted) {
+                    painted = true;
+                    Metrics.FIRST_PAINT.record(Metrics.processStart());
+                }
+            }
+        };
+
+        JPanel topPanel = new JPanel(new GridLayout(3, 1));
+        JPanel bottomPanel = new JPanel(new GridLayout(2, 1));
 
         // Heading 1 Label
         JLabel heading1 = new JLabel("Java Spell Checker.");
         heading1.setFont(new Font("SANS_SERIF", Font.BOLD, 32));
-        mainPanel.add(createPanel(heading1));
+        topPanel.add(createPanel(heading1));
 
         // Heading 2 Label
         JLabel heading2 = new JLabel("Choose a ASCII Based File to SpellCheck");
         heading2.setFont(new Font("SANS_SERIF", Font.PLAIN, 18));
         heading2.setForeground(Color.GRAY);
-        mainPanel.add(createPanel(heading2));
+        topPanel.add(createPanel(heading2));
 
         JPanel browse = new JPanel();
         browseText = new JTextField("Spellcheck...");
@@ -64,14 +83,19 @@ public class UserInterface {
 
         browse.add(browseText);
         browse.add(browseFiles);
-        mainPanel.add(createPanel(browse));
-
-        // Output Text Box
-        output = new JTextField("Output...");
-        output.setFont(new Font("SANS_SERIF", Font.PLAIN, 14));
-        output.setForeground(Color.LIGHT_GRAY);
-        output.setPreferredSize(new Dimension(400, 30));
-        mainPanel.add(createPanel(output));
+        topPanel.add(createPanel(browse));
+
+        // Output Text View, scrollable and only painted where visible, so large files stay responsive
+        output = new DocumentView();
+        output.getTextArea().setText("Output...");
+        output.getTextArea().setFont(new Font("SANS_SERIF", Font.PLAIN, 14));
+        problems = new JLabel(" ");
+        problems.setFont(new Font("SANS_SERIF", Font.PLAIN, 14));
+        problems.setForeground(Color.GRAY);
+        JPanel outputPanel = new JPanel(new BorderLayout());
+        outputPanel.setBorder(BorderFactory.createEmptyBorder(0, 40, 0, 40));
+        outputPanel.add(output, BorderLayout.CENTER);
+        outputPanel.add(problems, BorderLayout.SOUTH);
 
         JPanel bottomButtons = new JPanel();
         // Download Button
@@ -88,14 +112,55 @@ public class UserInterface {
         reset.setBackground(Color.DARK_GRAY);
         reset.addActionListener(e -> resetAction());
 
+        // Auto-apply Toggle
+        JCheckBox autoApply = new JCheckBox("Auto-apply past corrections", corrections.isAutoApply());
+        autoApply.setFont(new Font("SANS_SERIF", Font.PLAIN, 14));
+        autoApply.addActionListener(e -> corrections.setAutoApply(autoApply.isSelected()));
+
         bottomButtons.add(download);
         bottomButtons.add(reset);
-        mainPanel.add(createPanel(bottomButtons));
+        bottomButtons.add(autoApply);
+        bottomPanel.add(createPanel(bottomButtons));
+
+        // Loading Indicator
+        JProgressBar loading = new JProgressBar();
+        loading.setIndeterminate(true);
+        loading.setStringPainted(true);
+        loading.setString("Loading dictionary...");
+        loading.setPreferredSize(new Dimension(300, 24));
+        bottomPanel.add(createPanel(loading));
+        dictionaryLoad.whenComplete((dictionary, error) -> SwingUtilities.invokeLater(() -> {
+            loading.setIndeterminate(false);
+            if (error != null) {
+                loading.setString("Dictionary could not be loaded");
+                error.printStackTrace();
+            } else {
+                loading.setVisible(false);
+                // keep the problems in the output highlighted and counted as it is edited
+                incrementalChecker = new IncrementalChecker(new Spellchecker(dictionary));
+                incrementalChecker.attach(output.getDocument(), this::showProblems);
+                output.setChecker(incrementalChecker);
+                // words added to the user dictionary, here or by another process, stop being flagged
+                dictionary.addChangeListener(incrementalChecker::invalidate);
+            }
+        }));
 
+        mainPanel.add(topPanel, BorderLayout.NORTH);
+        mainPanel.add(outputPanel, BorderLayout.CENTER);
+        mainPanel.add(bottomPanel, BorderLayout.SOUTH);
         frame.add(mainPanel);
         frame.setVisible(true);
     }
 
+    /**
+     * Highlights and counts the problems the incremental checker currently finds in the output
+     */
+    private void showProblems() {
+        output.repaint();
+        int count = output.getFindingCount();
+        problems.setText(count == 0 ? "No problems" : count == 1 ? "1 problem" : count + " problems");
+    }
+
     /**
      * A container to hold swing components
      * @param component A swing component that will be attached to the JPanel
@@ -113,7 +178,8 @@ public class UserInterface {
     private void downloadAction() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save File");
-        String outputString = String.join(". ", corrections);
+        // the output is editable, so save what it shows rather than the text the review returned
+        String outputString = output.getTextArea().getText();
 
         int userSelection = fileChooser.showSaveDialog(null);
 
@@ -150,83 +216,38 @@ public class UserInterface {
      */
     private void resetAction() {
         browseText.setText("");
-        output.setText("");
-        corrections.clear();
+        output.getTextArea().setText("");
     }
 
     /**
-     * Provides the logical algorithm needed to detect misspelled words, double word repetitions, and mis-capitalization
+     * Opens a non-modal review of the problems the spellchecking engine finds. Findings are listed while the rest
+     * of the text is still being scanned, and the accepted replacements are handed over when the user finishes.
+     * Opens once the dictionaries are loaded, without blocking the event dispatch thread meanwhile, and not at all
+     * if they could not be loaded, which the window reports
      * @param input A string that needs to be spellchecked
+     * @param onCorrected Receives the corrected text on the event dispatch thread
      */
-    public void checkWord(String input) {
-        dictionary.userWordList("user_dict.txt");
-        String[] sentences = input.split("\\. ");
-
-        for (String sentence : sentences) {
-            String[] words = sentence.split(" ");
-
-            // Check for double word repetitions
-            for (int j = 0; j < words.length - 1; j++) {
-                if (words[j].equalsIgnoreCase(words[j + 1])) {
-                    SpellcheckerApp options = new SpellcheckerApp(null, words[j], sentence,
-                            Collections.singletonList("Delete redundant word"),
-                            "Double Word Repetition");
-                    options.setVisible(true);
-                    if (options.getSelectedReplacement() != null) {
-                        sentence = sentence.replaceFirst(words[j], "");
-                    }
-                }
-            }
-
-            for (String word : words) {
-                // Check for mis-capitalized words at the beginning of each sentence
-                if (!Character.isUpperCase(words[0].charAt(0))) {
-                    SpellcheckerApp options = new SpellcheckerApp(null, word, sentence,
-                            Collections.singletonList(words[0].substring(0, 1).toUpperCase() + words[0].substring(1)),
-                            "First word in sentence should be capitalized");
-                    options.setVisible(true);
-                    if (options.getSelectedReplacement() != null) {
-                        sentence = sentence.replace(words[0], options.getSelectedReplacement());
-                        words[0] = words[0].replace(words[0], options.getSelectedReplacement());
-                    }
-                }
-
-                // Check dictionary to see if word is valid
-                if (!dictionary.isValid(word) && !word.matches(".*\\d.*")) {
-                    CheckWord suggestion = new CheckWord(word, dictionary.getSuggestions(word));
-                    SpellcheckerApp options = new SpellcheckerApp(null, word, sentence,
-                            suggestion.getSuggestedWords(),
-                            "Misspelled Word");
-                    options.setVisible(true);
-                    if (options.getSelectedReplacement() != null) {
-                        sentence = sentence.replace(word, options.getSelectedReplacement());
-                    }
-                }
+    public void checkWord(String input, Consumer<String> onCorrected) {
+        dictionaryLoad.thenAcceptAsync(dictionary ->
+                new ReviewPanel(null, input, dictionary, corrections, onCorrected).setVisible(true),
+                SwingUtilities::invokeLater);
+    }
 
-                // Check for mixed capitalization within each word
-                if (!word.substring(1).equals(word.substring(1).toLowerCase())) {
-                    CheckWord suggestion = new CheckWord(word, Collections.singletonList(word.toLowerCase()));
-                    SpellcheckerApp options = new SpellcheckerApp(null, word, sentence,
-                            suggestion.getSuggestedWords(),
-                            "Mixed Capitalization");
-                    options.setVisible(true);
-                    if (options.getSelectedReplacement() != null) {
-                        sentence = sentence.replace(word, options.getSelectedReplacement());
-                    }
-                }
-            }
-            corrections.add(sentence);
-        }
+    /**
+     * Provides the logical algorithm needed to detect misspelled words, double word repetitions, and mis-capitalization.
+     * The corrected text is written to the output once the review is finished
+     * @param input A string that needs to be spellchecked
+     */
+    public void checkWord(String input) {
+        checkWord(input, corrected -> output.getTextArea().setText(corrected));
     }
 
     /**
-     * Calls the checkWord function and then writes the results to the output label
+     * Calls the checkWord function and then writes the results to the output label once the review is finished
      * @param input A string that needs to be spellchecked
      */
     public void displayOutput(String input) {
         checkWord(input);
-        String outputString = String.join(". ", corrections);
-        output.setText(outputString);
     }
 
     /**
@@ -255,8 +276,19 @@ public class UserInterface {
             userFile = Path.of(file);
             browseText.setText(String.valueOf(userFile));
             text = Files.readString(Paths.get(String.valueOf(userFile)));
-            output.setText(text);
-            displayOutput(text);
+            // check once the load finishes, without blocking the event thread meanwhile
+            if (!dictionaryLoad.isDone()) {
+                output.getTextArea().setText("Waiting for the dictionary to load...");
+            }
+            dictionaryLoad.whenComplete((dictionary, error) -> SwingUtilities.invokeLater(() -> {
+                output.getTextArea().setText(text);
+                if (error != null) {
+                    JOptionPane.showMessageDialog(null, "The dictionary could not be loaded, so the file cannot be "
+                            + "checked.", "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    displayOutput(text);
+                }
+            }));
         }
         dialog.dispose();
     }
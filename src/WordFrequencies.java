@@ -0,0 +1,279 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * @author gsotelo
+ * Unigram word counts held in a primitive array indexed by word id, used to rank suggestions by how common they
+ * are as well as by how far they are from the misspelled word. A segment tree over the counts finds the most
+ * common words of any id range, e.g. the words sharing a prefix, in logarithmic time
+ */
+public class WordFrequencies {
+    // a suggestion one more edit away must be this many times as common to rank the same
+    static final double EDIT_PENALTY = Math.log(1000);
+
+    private final WordGraph words;
+    private final int[] counts;
+    // best[n + id] is id and best[i] the more common of best[2i] and best[2i + 1], for n words
+    private final int[] best;
+    private final Path source;
+
+    private WordFrequencies(WordGraph words, int[] counts, Path source) {
+        this.words = words;
+        this.counts = counts;
+        this.source = source;
+        int n = counts.length;
+        this.best = new int[2 * n];
+        for (int id = 0; id < n; id++) {
+            best[n + id] = id;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            best[i] = better(best[2 * i], best[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Reads a frequency file with one word and its count per line, separated by whitespace or a comma. Lines
+     * without a count, such as a header, and words missing from the dictionary are skipped
+     * @param file The frequency file
+     * @param words The dictionary the counts are indexed by
+     * @return The word frequencies
+     * @throws IOException If the file cannot be read
+     */
+    public static WordFrequencies load(Path file, WordGraph words) throws IOException {
+        int[] counts = new int[words.size()];
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = 0;
+                while (separator < line.length() && line.charAt(separator) != ','
+                        && !Character.isWhitespace(line.charAt(separator))) {
+                    separator++;
+                }
+                int id = words.indexOf(line.substring(0, separator).toLowerCase());
+                long count = parseCount(line, separator + 1);
+                if (id >= 0 && count > 0) {
+                    counts[id] = (int) Math.min(Integer.MAX_VALUE, counts[id] + count);
+                }
+            }
+        }
+        return new WordFrequencies(words, counts, file);
+    }
+
+    /**
+     * Reads the same frequency file again for another dictionary, since word ids change with the words
+     * @param words The new dictionary
+     * @return The word frequencies indexed by the new dictionary
+     * @throws IOException If the file cannot be read
+     */
+    public WordFrequencies reload(WordGraph words) throws IOException {
+        return load(source, words);
+    }
+
+    /**
+     * Looks up how often a word occurs
+     * @param word The word in lower case
+     * @return The count of the word, or 0 if it is not known
+     */
+    public int count(CharSequence word) {
+        int id = words.indexOf(word);
+        return id < 0 ? 0 : counts[id];
+    }
+
+    /**
+     * Finds the most common words of a range of word ids, most common first and alphabetically on equal counts.
+     * Each word found costs a logarithmic segment tree query, whatever the size of the range
+     * @param from The first word id of the range
+     * @param to The word id after the range
+     * @param limit The maximum number of words
+     * @return The ids of at most limit words with a count above zero
+     */
+    public int[] top(int from, int to, int limit) {
+        int[] top = new int[Math.max(0, limit)];
+        int found = 0;
+        // id ranges not searched yet, the one holding the most common word first; each is {from, to, best id}
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[2], b[2]) == a[2] ? -1 : 1);
+        offerRange(ranges, from, to);
+        while (found < top.length && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int id = range[2];
+            if (counts[id] == 0) {
+                break;
+            }
+            top[found++] = id;
+            offerRange(ranges, range[0], id);
+            offerRange(ranges, id + 1, range[1]);
+        }
+        return Arrays.copyOf(top, found);
+    }
+
+    /**
+     * Ranks suggestions by frequency and edit distance together, keeping the best few in a fixed-size heap.
+     * Repeated suggestions are ranked once
+     * @param word The misspelled word, in lower case
+     * @param candidates The suggestions to be ranked
+     * @param limit The maximum number of suggestions kept
+     * @return At most limit suggestions, best first
+     */
+    public List<String> rank(String word, List<String> candidates, int limit) {
+        Heap heap = new Heap(limit);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            String candidate = candidates.get(i);
+            if (!seen.add(candidate)) {
+                continue;
+            }
+            int distance = EditDistance.distance(word, candidate, Math.max(word.length(), candidate.length()));
+            heap.offer(Math.log(count(candidate) + 1.0) - EDIT_PENALTY * distance, i);
+        }
+        List<String> ranked = new ArrayList<>(heap.size);
+        while (heap.size > 0) {
+            ranked.add(candidates.get(heap.poll()));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * Accessor to retrieve the frequency file the counts were read from
+     * @return the frequency file
+     */
+    public Path getSource() {
+        return source;
+    }
+
+    private void offerRange(PriorityQueue<int[]> ranges, int from, int to) {
+        if (from < to) {
+            ranges.add(new int[] {from, to, best(from, to)});
+        }
+    }
+
+    /**
+     * Queries the segment tree for the most common word of an id range
+     * @param from The first word id of the range
+     * @param to The word id after the range, above from
+     * @return The id of the most common word, the first of equally common ones
+     */
+    private int best(int from, int to) {
+        int n = counts.length;
+        int result = from;
+        for (int low = from + n, high = to + n; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                result = better(result, best[low++]);
+            }
+            if ((high & 1) == 1) {
+                result = better(result, best[--high]);
+            }
+        }
+        return result;
+    }
+
+    private int better(int a, int b) {
+        return counts[a] > counts[b] || (counts[a] == counts[b] && a < b) ? a : b;
+    }
+
+    private static long parseCount(String line, int from) {
+        long count = 0;
+        boolean digits = false;
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                count = Math.min(count * 10 + (c - '0'), Integer.MAX_VALUE);
+                digits = true;
+            } else if (digits || !Character.isWhitespace(c)) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Min-heap of at most a fixed number of scored items in primitive arrays. Once full, an item is only let in
+     * when it scores higher than the lowest item, which it replaces; ties keep the earlier item
+     */
+    private static final class Heap {
+        private final double[] scores;
+        private final int[] items;
+        private int size;
+
+        Heap(int capacity) {
+            scores = new double[capacity];
+            items = new int[capacity];
+        }
+
+        void offer(double score, int item) {
+            if (size < scores.length) {
+                scores[size] = score;
+                items[size] = item;
+                siftUp(size++);
+            } else if (size > 0 && lower(0, score, item)) {
+                scores[0] = score;
+                items[0] = item;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Removes the lowest item
+         * @return The removed item
+         */
+        int poll() {
+            int item = items[0];
+            size--;
+            scores[0] = scores[size];
+            items[0] = items[size];
+            siftDown(0);
+            return item;
+        }
+
+        // true if the entry at i ranks below the given score and item; later items rank lower on equal scores
+        private boolean lower(int i, double score, int item) {
+            return scores[i] < score || (scores[i] == score && items[i] > item);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!lower(i, scores[parent], items[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (lower(child, scores[smallest], items[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int item = items[a];
+            items[a] = items[b];
+            items[b] = item;
+        }
+    }
+}
@@ -0,0 +1,606 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * @author gsotelo
+ * Immutable word store backed by a minimal acyclic automaton (DAWG). Words sharing a prefix or a suffix share
+ * the same states, and the automaton is packed into primitive buffers, so it takes a fraction of the heap a
+ * HashSet of Strings needs. Each word is also given a dense id equal to its position in sorted order.
+ */
+public class WordGraph implements Iterable<String> {
+    static final int NONE = -1;
+
+    // Each arc is packed into one long: the label in bits 0-15, LAST_ARC when it is the last arc of its state,
+    // FINAL_ARC when a word ends after taking it, and the target state in the upper 32 bits. A state is the index
+    // of its first arc, so a lookup reads one contiguous run of longs per character.
+    static final long LAST_ARC = 1L << 16;
+    static final long FINAL_ARC = 1L << 17;
+
+    // Binary format: a fixed header followed by the packed arcs and the arc counts, all little endian
+    static final int MAGIC = 0x4A534347; // "JSCG"
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final LongBuffer arcs;
+    // counts[a] is the number of words reachable through arc a, used to number words
+    private final IntBuffer counts;
+    private final int size;
+
+    /**
+     * Constructor builds the automaton from a collection of words; duplicates and empty words are ignored
+     * @param words The words to be stored
+     */
+    public WordGraph(Collection<String> words) {
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+        Builder builder = new Builder();
+        for (String word : sorted) {
+            builder.add(word);
+        }
+        builder.finish();
+        this.arcs = LongBuffer.wrap(builder.packedArcs);
+        this.counts = IntBuffer.wrap(builder.packedCounts);
+        this.size = builder.words;
+    }
+
+    /**
+     * Constructor wraps already packed automaton buffers
+     * @param arcs The packed arcs, the arcs of the root state first
+     * @param counts The number of words reachable through each arc
+     * @param size The number of stored words
+     */
+    WordGraph(LongBuffer arcs, IntBuffer counts, int size) {
+        this.arcs = arcs;
+        this.counts = counts;
+        this.size = size;
+    }
+
+    /**
+     * Memory maps a graph saved by {@link #save}. Lookups read straight from the mapped file; nothing is copied
+     * to the heap
+     * @param path The binary graph file
+     * @param sourceSize The size of the text file the graph must have been compiled from
+     * @param sourceModified The modification time of the text file the graph must have been compiled from
+     * @return The mapped graph, or null if the file is missing, of another format version or out of date
+     * @throws IOException If the file exists but cannot be read
+     */
+    public static WordGraph map(Path path, long sourceSize, long sourceModified) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+            return null;
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                || buffer.getLong(8) != sourceSize || buffer.getLong(16) != sourceModified) {
+            return null;
+        }
+        int size = buffer.getInt(24);
+        int arcCount = buffer.getInt(28);
+        long expected = HEADER_BYTES + 12L * arcCount;
+        if (buffer.capacity() != expected) {
+            return null;
+        }
+        int countsOffset = HEADER_BYTES + 8 * arcCount;
+        LongBuffer arcs = buffer.slice(HEADER_BYTES, 8 * arcCount).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        IntBuffer counts = buffer.slice(countsOffset, 4 * arcCount).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        return new WordGraph(arcs, counts, size);
+    }
+
+    /**
+     * Saves the graph in the binary format read by {@link #map}
+     * @param path The binary graph file to be written
+     * @param sourceSize The size of the text file the graph was compiled from
+     * @param sourceModified The modification time of the text file the graph was compiled from
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path, long sourceSize, long sourceModified) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 12 * arcs.limit()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(sourceSize).putLong(sourceModified)
+                .putInt(size).putInt(arcs.limit());
+        buffer.asLongBuffer().put(arcs.duplicate().rewind());
+        buffer.position(HEADER_BYTES + 8 * arcs.limit());
+        buffer.asIntBuffer().put(counts.duplicate().rewind());
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Creates a new graph holding the words of an existing graph plus a collection of new words
+     * @param graph The existing graph, may be null
+     * @param words The words to be added
+     * @return A graph holding both sets of words
+     */
+    public static WordGraph merge(WordGraph graph, Iterable<String> words) {
+        List<String> all = new ArrayList<>(graph == null ? 0 : graph.size());
+        if (graph != null) {
+            graph.forEach(all::add);
+        }
+        words.forEach(all::add);
+        return new WordGraph(all);
+    }
+
+    /**
+     * Accessor to retrieve the number of stored words
+     * @return the number of stored words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the word is stored in the graph
+     * @param word The word being looked up
+     * @return True if the word is stored, false otherwise
+     */
+    public boolean contains(CharSequence word) {
+        int state = root();
+        int arc = NONE;
+        for (int i = 0; i < word.length(); i++) {
+            arc = findArc(state, word.charAt(i));
+            if (arc == NONE) {
+                return false;
+            }
+            state = target(arc);
+        }
+        return arc != NONE && isFinal(arc);
+    }
+
+    /**
+     * Finds the id of a word, which is its position among the stored words in sorted order
+     * @param word The word being looked up
+     * @return The id of the word, or -1 if the word is not stored
+     */
+    public int indexOf(CharSequence word) {
+        int state = root();
+        int index = 0;
+        for (int i = 0; i < word.length(); i++) {
+            if (state == NONE) {
+                return -1;
+            }
+            int arc = state;
+            while (label(arc) != word.charAt(i)) {
+                index += counts.get(arc);
+                arc = nextArc(arc);
+                if (arc == NONE) {
+                    return -1;
+                }
+            }
+            if (i == word.length() - 1) {
+                return isFinal(arc) ? index : -1;
+            }
+            if (isFinal(arc)) {
+                index++;
+            }
+            state = target(arc);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the ids of the words starting with a prefix, which are consecutive since ids follow sorted order. Only
+     * the arcs along the prefix are visited, so the cost does not depend on the number of stored words
+     * @param prefix The prefix being looked up
+     * @return The first id in the upper 32 bits and the id after the last in the lower 32 bits; both are 0 when no
+     *         word starts with the prefix
+     */
+    public long prefixRange(CharSequence prefix) {
+        if (prefix.length() == 0) {
+            return size;
+        }
+        int first = 0;
+        int arc = NONE;
+        for (int i = 0; i < prefix.length(); i++) {
+            int state = root();
+            if (arc != NONE) {
+                // the word ending at the previous letter comes before every longer word
+                if (isFinal(arc)) {
+                    first++;
+                }
+                state = target(arc);
+            }
+            arc = state;
+            while (arc != NONE && label(arc) != prefix.charAt(i)) {
+                first += counts.get(arc);
+                arc = nextArc(arc);
+            }
+            if (arc == NONE) {
+                return 0;
+            }
+        }
+        return ((long) first << 32) | (first + counts.get(arc));
+    }
+
+    /**
+     * Retrieves the word with the given id
+     * @param index The id of the word, between 0 and size() - 1
+     * @return The stored word
+     */
+    public String wordAt(int index) {
+        StringBuilder word = new StringBuilder();
+        wordAt(index, word);
+        return word.toString();
+    }
+
+    /**
+     * Retrieves the word with the given id into a reusable buffer
+     * @param index The id of the word, between 0 and size() - 1
+     * @param word The buffer the word replaces the content of
+     */
+    public void wordAt(int index, StringBuilder word) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Word id out of range: " + index);
+        }
+        word.setLength(0);
+        int arc = root();
+        while (true) {
+            int count = counts.get(arc);
+            if (index >= count) {
+                index -= count;
+                arc = nextArc(arc);
+                continue;
+            }
+            word.append(label(arc));
+            if (isFinal(arc)) {
+                if (index == 0) {
+                    return;
+                }
+                index--;
+            }
+            arc = target(arc);
+        }
+    }
+
+    /**
+     * Iterates over the stored words in sorted order
+     * @return An iterator over the stored words
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private final StringBuilder word = new StringBuilder();
+            // path[d] is the arc taken at depth d
+            private int[] path = new int[64];
+            private int depth = -1;
+            private boolean done = root() == NONE;
+            private String next = advance();
+
+            private String advance() {
+                while (!done) {
+                    int arc;
+                    if (depth < 0) {
+                        arc = root();
+                        depth = 0;
+                    } else if (target(path[depth]) != NONE) {
+                        arc = target(path[depth]);
+                        depth++;
+                    } else {
+                        // climb to the deepest arc that has a next sibling
+                        while (depth >= 0 && nextArc(path[depth]) == NONE) {
+                            depth--;
+                        }
+                        if (depth < 0) {
+                            done = true;
+                            return null;
+                        }
+                        arc = nextArc(path[depth]);
+                    }
+                    if (depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                    }
+                    path[depth] = arc;
+                    word.setLength(depth);
+                    word.append(label(arc));
+                    if (isFinal(arc)) {
+                        return word.toString();
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                String word = next;
+                next = advance();
+                return word;
+            }
+        };
+    }
+
+    /**
+     * Estimates the heap or mapped memory taken by the packed automaton
+     * @return The size of the automaton buffers in bytes
+     */
+    public long sizeInBytes() {
+        return 8L * arcs.limit() + 4L * counts.limit();
+    }
+
+    /**
+     * Accessor to retrieve the number of automaton arcs
+     * @return the number of arcs
+     */
+    public int arcCount() {
+        return arcs.limit();
+    }
+
+    // Low level access used by searches that walk the automaton directly. A state is the index of its first arc,
+    // NONE for a state without arcs.
+
+    int root() {
+        return arcs.limit() == 0 ? NONE : 0;
+    }
+
+    int nextArc(int arc) {
+        return (arcs.get(arc) & LAST_ARC) != 0 ? NONE : arc + 1;
+    }
+
+    char label(int arc) {
+        return (char) arcs.get(arc);
+    }
+
+    int target(int arc) {
+        return (int) (arcs.get(arc) >> 32);
+    }
+
+    boolean isFinal(int arc) {
+        return (arcs.get(arc) & FINAL_ARC) != 0;
+    }
+
+    int count(int arc) {
+        return counts.get(arc);
+    }
+
+    /**
+     * Scans the arcs of a state for a label
+     * @param state The state whose arcs are searched
+     * @param c The label being looked up
+     * @return The index of the matching arc, or NONE if there is none
+     */
+    int findArc(int state, char c) {
+        if (state == NONE) {
+            return NONE;
+        }
+        for (int arc = state; ; arc++) {
+            long packed = arcs.get(arc);
+            char label = (char) packed;
+            if (label == c) {
+                return arc;
+            }
+            if (label > c || (packed & LAST_ARC) != 0) {
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * Builds a minimal automaton from words added in sorted order (Daciuk et al., incremental construction),
+     * then packs it with the states laid out in depth first order, each next to the states that lead to it.
+     */
+    private static class Builder {
+        private int[] arcStart = new int[1024];
+        private int[] wordCount = new int[1024];
+        private boolean[] accepting = new boolean[1024];
+        private char[] arcLabel = new char[1024];
+        private int[] arcTarget = new int[1024];
+        private int states;
+        private int arcCount;
+
+        private long[] packedArcs;
+        private int[] packedCounts;
+        private int words;
+
+        private final Map<Signature, Integer> register = new HashMap<>();
+        private Pending[] path = {new Pending()};
+        private int depth;
+        private String previous = "";
+
+        /**
+         * Adds the next word; words must arrive in sorted order
+         * @param word The word being added
+         */
+        void add(String word) {
+            if (word.isEmpty() || word.equals(previous)) {
+                return;
+            }
+            int common = 0;
+            int max = Math.min(word.length(), previous.length());
+            while (common < max && word.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            minimize(common);
+            if (word.length() + 1 > path.length) {
+                path = Arrays.copyOf(path, Math.max(word.length() + 1, path.length * 2));
+            }
+            for (int i = common; i < word.length(); i++) {
+                path[i].addArc(word.charAt(i));
+                if (path[i + 1] == null) {
+                    path[i + 1] = new Pending();
+                }
+                path[i + 1].clear();
+            }
+            depth = word.length();
+            path[depth].accepting = true;
+            previous = word;
+            words++;
+        }
+
+        /**
+         * Registers every remaining state, finishing with the root, and packs the automaton
+         */
+        void finish() {
+            minimize(0);
+            int root = register(path[0]);
+            arcStart = ensure(arcStart, states + 1);
+            arcStart[states] = arcCount;
+            register.clear();
+
+            // give every state that has arcs a position in depth first preorder, the root first
+            int[] position = new int[states];
+            Arrays.fill(position, NONE);
+            int[] order = new int[states];
+            int ordered = 0;
+            int[] stack = new int[arcCount + 1];
+            int top = 0;
+            int packed = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int state = stack[--top];
+                if (position[state] != NONE || arcStart[state] == arcStart[state + 1]) {
+                    continue;
+                }
+                position[state] = packed;
+                packed += arcStart[state + 1] - arcStart[state];
+                order[ordered++] = state;
+                for (int a = arcStart[state + 1] - 1; a >= arcStart[state]; a--) {
+                    stack[top++] = arcTarget[a];
+                }
+            }
+
+            packedArcs = new long[arcCount];
+            packedCounts = new int[arcCount];
+            for (int i = 0; i < ordered; i++) {
+                int state = order[i];
+                int arc = position[state];
+                for (int a = arcStart[state]; a < arcStart[state + 1]; a++, arc++) {
+                    int target = arcTarget[a];
+                    long bits = arcLabel[a] | ((long) position[target] << 32);
+                    if (a == arcStart[state + 1] - 1) {
+                        bits |= LAST_ARC;
+                    }
+                    if (accepting[target]) {
+                        bits |= FINAL_ARC;
+                    }
+                    packedArcs[arc] = bits;
+                    packedCounts[arc] = wordCount[target];
+                }
+            }
+        }
+
+        /**
+         * Replaces the states on the current path deeper than the given depth with their registered equivalents
+         * @param common The depth down to which states are kept pending
+         */
+        private void minimize(int common) {
+            for (int i = depth; i > common; i--) {
+                int state = register(path[i]);
+                path[i - 1].targets[path[i - 1].size - 1] = state;
+            }
+            depth = common;
+        }
+
+        private int register(Pending pending) {
+            Signature signature = new Signature(pending);
+            Integer existing = register.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+            int state = states++;
+            arcStart = ensure(arcStart, states);
+            wordCount = ensure(wordCount, states);
+            if (states > accepting.length) {
+                accepting = Arrays.copyOf(accepting, states * 2);
+            }
+            arcStart[state] = arcCount;
+            accepting[state] = pending.accepting;
+            int count = pending.accepting ? 1 : 0;
+            for (int i = 0; i < pending.size; i++) {
+                if (arcCount == arcLabel.length) {
+                    arcLabel = Arrays.copyOf(arcLabel, arcCount * 2);
+                    arcTarget = Arrays.copyOf(arcTarget, arcCount * 2);
+                }
+                arcLabel[arcCount] = pending.labels[i];
+                arcTarget[arcCount] = pending.targets[i];
+                arcCount++;
+                count += wordCount[pending.targets[i]];
+            }
+            wordCount[state] = count;
+            register.put(signature, state);
+            return state;
+        }
+
+        private static int[] ensure(int[] array, int size) {
+            return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+        }
+    }
+
+    /**
+     * A state on the path of the last added word, not yet registered
+     */
+    private static class Pending {
+        private boolean accepting;
+        private char[] labels = new char[4];
+        private int[] targets = new int[4];
+        private int size;
+
+        void addArc(char label) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            labels[size] = label;
+            targets[size] = NONE;
+            size++;
+        }
+
+        void clear() {
+            accepting = false;
+            size = 0;
+        }
+    }
+
+    /**
+     * The right language of a registered state: its finality and its outgoing arcs
+     */
+    private static class Signature {
+        private final boolean accepting;
+        private final char[] labels;
+        private final int[] targets;
+        private final int hash;
+
+        Signature(Pending pending) {
+            this.accepting = pending.accepting;
+            this.labels = Arrays.copyOf(pending.labels, pending.size);
+            this.targets = Arrays.copyOf(pending.targets, pending.size);
+            this.hash = 31 * (31 * Boolean.hashCode(accepting) + Arrays.hashCode(labels)) + Arrays.hashCode(targets);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) o;
+            return accepting == other.accepting && Arrays.equals(labels, other.labels)
+                    && Arrays.equals(targets, other.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}